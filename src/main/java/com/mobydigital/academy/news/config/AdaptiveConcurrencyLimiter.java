@@ -0,0 +1,86 @@
+package com.mobydigital.academy.news.config;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Límite de concurrencia adaptativo basado en el gradiente de latencia (similar a Gradient2 de Netflix):
+ * compara la latencia reciente con la de largo plazo; si la reciente sube, el límite baja, y si se mantiene,
+ * el límite crece de a poco. Así el servicio deja de aceptar trabajo antes de agotar threads y heap.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double SHORT_WINDOW = 0.1;      // peso de cada muestra en la latencia reciente
+    private static final double LONG_WINDOW = 1.0 / 600; // peso de cada muestra en la latencia de referencia
+    private static final double TOLERANCE = 1.5;          // cuánto puede crecer la latencia sin bajar el límite
+    private static final double SMOOTHING = 0.2;
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final AtomicInteger inflight = new AtomicInteger();
+
+    private volatile double limit;
+    private double shortRtt;
+    private double longRtt;
+
+    public AdaptiveConcurrencyLimiter(String name, int initialLimit, int minLimit, int maxLimit) {
+        this.name = name;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = initialLimit;
+    }
+
+    // Reserva un lugar si hay capacidad; si devuelve true hay que llamar a release al terminar
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inflight.get();
+            if (current >= (int) limit) return false;
+            if (inflight.compareAndSet(current, current + 1)) return true;
+        }
+    }
+
+    public void release(long startNanos, boolean failed) {
+        int inflightAtEnd = inflight.getAndDecrement();
+        // Un error rápido no dice nada de la latencia real
+        if (!failed) {
+            onSample(System.nanoTime() - startNanos, inflightAtEnd);
+        }
+    }
+
+    private synchronized void onSample(long rttNanos, int inflightAtEnd) {
+        double rtt = rttNanos;
+        if (longRtt == 0) {
+            shortRtt = rtt;
+            longRtt = rtt;
+            return;
+        }
+        shortRtt += (rtt - shortRtt) * SHORT_WINDOW;
+        longRtt += (rtt - longRtt) * LONG_WINDOW;
+
+        // Si la latencia de referencia quedó muy por encima (p. ej. tras un pico), se deja recuperar
+        if (longRtt / shortRtt > 2) {
+            longRtt *= 0.95;
+        }
+
+        // Con poca carga la muestra no dice nada sobre el límite
+        if (inflightAtEnd < limit / 2) return;
+
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRtt / shortRtt));
+        double queueSize = Math.sqrt(limit);
+        double newLimit = limit * gradient + queueSize;
+        newLimit = limit * (1 - SMOOTHING) + newLimit * SMOOTHING;
+        limit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInflight() {
+        return inflight.get();
+    }
+
+    public String getName() {
+        return name;
+    }
+}
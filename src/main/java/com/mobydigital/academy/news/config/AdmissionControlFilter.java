@@ -0,0 +1,154 @@
+package com.mobydigital.academy.news.config;
+
+import com.mobydigital.academy.news.dto.Audience;
+import com.mobydigital.academy.news.service.StaleFeedService;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Control de admisión con dos pools independientes: lecturas del feed/catálogo y webhooks de Contentful.
+ * Un pico de lecturas no puede dejar sin capacidad a los webhooks. Cuando el límite se alcanza, las lecturas
+ * del feed se responden con el último snapshot disponible y, si no hay, con 503 + Retry-After.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@Slf4j
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    private static final String NEWS_PATH = "/contentful/news/";
+    private static final String CATALOG_PATH = "/contentful/catalog";
+    private static final String WEBHOOK_PATH = "/contentful/webhook";
+
+    private final AdaptiveConcurrencyLimiter readLimiter;
+    private final AdaptiveConcurrencyLimiter webhookLimiter;
+    private final StaleFeedService staleFeedService;
+
+    @Value("${admission.retry-after-seconds:2}")
+    private int retryAfterSeconds;
+
+    public AdmissionControlFilter(@Value("${admission.read.initial-limit:40}") int readInitial,
+                                  @Value("${admission.read.min-limit:8}") int readMin,
+                                  @Value("${admission.read.max-limit:150}") int readMax,
+                                  @Value("${admission.webhook.initial-limit:10}") int webhookInitial,
+                                  @Value("${admission.webhook.min-limit:2}") int webhookMin,
+                                  @Value("${admission.webhook.max-limit:40}") int webhookMax,
+                                  StaleFeedService staleFeedService) {
+        this.readLimiter = new AdaptiveConcurrencyLimiter("read", readInitial, readMin, readMax);
+        this.webhookLimiter = new AdaptiveConcurrencyLimiter("webhook", webhookInitial, webhookMin, webhookMax);
+        this.staleFeedService = staleFeedService;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return limiterFor(request.getServletPath()) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        AdaptiveConcurrencyLimiter limiter = limiterFor(request.getServletPath());
+
+        if (!limiter.tryAcquire()) {
+            log.warn("Límite de concurrencia '{}' alcanzado ({} en curso), se descarta {}",
+                    limiter.getName(), limiter.getInflight(), request.getServletPath());
+            if (limiter != readLimiter || !serveStaleFeed(request, response)) {
+                reject(response);
+            }
+            return;
+        }
+
+        Permit permit = new Permit(limiter, System.nanoTime());
+        boolean failed = true;
+        try {
+            chain.doFilter(request, response);
+            failed = response.getStatus() >= 500;
+        } finally {
+            if (request.isAsyncStarted()) {
+                // StreamingResponseBody y similares siguen escribiendo en otro thread: se libera al terminar
+                request.getAsyncContext().addListener(permit);
+            } else {
+                permit.release(failed);
+            }
+        }
+    }
+
+    private AdaptiveConcurrencyLimiter limiterFor(String path) {
+        if (path == null) return null;
+        if (path.startsWith(WEBHOOK_PATH)) return webhookLimiter;
+        if (path.startsWith(NEWS_PATH) || path.startsWith(CATALOG_PATH)) return readLimiter;
+        return null;
+    }
+
+    // Solo el feed tiene una versión previa que se pueda servir sin trabajo extra
+    private boolean serveStaleFeed(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Audience audience = switch (request.getServletPath()) {
+            case NEWS_PATH + "app" -> Audience.MOBY_APP;
+            case NEWS_PATH + "web" -> Audience.MOBY_WEB;
+            default -> null;
+        };
+        return audience != null && staleFeedService.write(audience, request, response);
+    }
+
+    private void reject(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.getWriter().write("Servicio saturado, reintentar más tarde.");
+    }
+
+    // Lugar tomado en un limitador; se libera una sola vez, al volver del filtro o al terminar el request async
+    private static final class Permit implements AsyncListener {
+
+        private final AdaptiveConcurrencyLimiter limiter;
+        private final long startNanos;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(AdaptiveConcurrencyLimiter limiter, long startNanos) {
+            this.limiter = limiter;
+            this.startNanos = startNanos;
+        }
+
+        void release(boolean failed) {
+            if (released.compareAndSet(false, true)) {
+                limiter.release(startNanos, failed);
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release(event.getSuppliedResponse() instanceof HttpServletResponse http && http.getStatus() >= 500);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release(true);
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release(true);
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // Si se vuelve a iniciar el modo async, los listeners se descartan: hay que registrarse de nuevo
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
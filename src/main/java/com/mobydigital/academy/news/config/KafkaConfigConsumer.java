@@ -0,0 +1,58 @@
+package com.mobydigital.academy.news.config;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+
+@Configuration
+public class KafkaConfigConsumer {
+
+  @Value("${BOOTSTRAP_SERVER}")
+    private String bootstrapServers;
+
+  @Value("${API_KEY}")
+    private String username;
+
+  @Value("${API_SECRET}")
+    private String password;
+
+  // Consumidor del topic de estado: cada réplica lee el topic completo desde el principio, sin group.id
+  @Bean
+  public ConsumerFactory<String, String> stateConsumerFactory() {
+    Map<String, Object> props = new HashMap<>();
+    props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+    props.put("security.protocol", "SASL_SSL");
+    props.put("sasl.mechanism", "PLAIN");
+    props.put("sasl.jaas.config",
+    String.format("org.apache.kafka.common.security.plain.PlainLoginModule required username=\"%s\" password=\"%s\";", username, password));
+
+    props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+    props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+    props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 1000);
+
+    props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+    props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+    return new DefaultKafkaConsumerFactory<>(props);
+  }
+
+  @Bean
+  public ConcurrentKafkaListenerContainerFactory<String, String> stateListenerContainerFactory() {
+    ConcurrentKafkaListenerContainerFactory<String, String> factory = new ConcurrentKafkaListenerContainerFactory<>();
+    factory.setConsumerFactory(stateConsumerFactory());
+    factory.setConcurrency(1);
+    // Sin consumer group no hay offsets que commitear: con MANUAL y sin acks el contenedor nunca commitea
+    factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+    // Continúa el trace que viene en los headers del record
+    factory.getContainerProperties().setObservationEnabled(true);
+    return factory;
+  }
+}
@@ -3,12 +3,14 @@ package com.mobydigital.academy.news.config;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.LongSerializer;    // ✅
 import org.apache.kafka.common.serialization.StringSerializer; // ✅
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.core.ProducerFactory;
@@ -25,6 +27,12 @@ public class KafkaConfigProducer {
   @Value("${API_SECRET}")
     private String password;
 
+  @Value("${news.state.topic}")
+    private String stateTopic;
+
+  @Value("${news.state.partitions:3}")
+    private int statePartitions;
+
   @Bean
   public Map<String, Object> producerProperties() {
     Map<String, Object> props = new HashMap<>();
@@ -53,6 +61,32 @@ public class KafkaConfigProducer {
 
   @Bean
   public KafkaTemplate<Long, String> createTemplate() {
-    return new KafkaTemplate<>(producerFactory());
+    KafkaTemplate<Long, String> template = new KafkaTemplate<>(producerFactory());
+    // Span de producción + propagación del trace en los headers del record
+    template.setObservationEnabled(true);
+    return template;
+  }
+
+  // Topic compactado con el estado materializado de cada entrada (clave String = id de Contentful)
+  @Bean
+  public NewTopic newsStateTopic() {
+    return TopicBuilder.name(stateTopic)
+        .partitions(statePartitions)
+        .compact()
+        .build();
+  }
+
+  @Bean
+  public ProducerFactory<String, String> stateProducerFactory() {
+    Map<String, Object> props = new HashMap<>(producerProperties());
+    props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+    return new DefaultKafkaProducerFactory<>(props);
+  }
+
+  @Bean
+  public KafkaTemplate<String, String> stateKafkaTemplate() {
+    KafkaTemplate<String, String> template = new KafkaTemplate<>(stateProducerFactory());
+    template.setObservationEnabled(true);
+    return template;
   }
 }
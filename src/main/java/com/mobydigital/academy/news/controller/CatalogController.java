@@ -0,0 +1,68 @@
+package com.mobydigital.academy.news.controller;
+
+import com.mobydigital.academy.news.dto.Audience;
+import com.mobydigital.academy.news.dto.CatalogFilter;
+import com.mobydigital.academy.news.service.CatalogService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.ExampleObject;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.AllArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.ZonedDateTime;
+
+@RestController
+@RequestMapping("/contentful/catalog")
+@AllArgsConstructor
+@Tag(
+        name = "News",
+        description = "Catálogo completo de noticias y novedades fijas para consumo interno de otros microservicios."
+)
+public class CatalogController {
+
+    private final CatalogService catalogService;
+
+    @Operation(
+            summary = "Obtener el catálogo completo de noticias activas y novedades fijas",
+            description = "Pensado para otros microservicios registrados en Eureka. La respuesta se escribe en streaming "
+                    + "y se pagina con un cursor opaco: si `nextCursor` no es null, se debe volver a llamar con ese valor. "
+                    + "Los filtros deben repetirse en cada llamada.",
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Página del catálogo",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    examples = @ExampleObject(value = "{\"items\": [], \"nextCursor\": \"MDoxMDA\"}")
+                            )
+                    ),
+                    @ApiResponse(responseCode = "400", description = "Cursor inválido")
+            }
+    )
+    @GetMapping
+    public ResponseEntity<StreamingResponseBody> getCatalog(
+            @Parameter(description = "Audiencia destino (MOBY_APP o MOBY_WEB); sin valor devuelve ambas.") @RequestParam(required = false) Audience audience,
+            @Parameter(description = "Filtra por prioridad.") @RequestParam(required = false) Boolean priority,
+            @Parameter(description = "Solo noticias que expiran antes de esta fecha ISO-8601.") @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime expiringBefore,
+            @Parameter(description = "Cursor opaco devuelto por la página anterior.") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Cantidad máxima de elementos por página (máximo 1000).") @RequestParam(defaultValue = "500") int limit) {
+
+        catalogService.checkCursor(cursor);
+        CatalogFilter filter = new CatalogFilter(audience, priority, expiringBefore);
+        StreamingResponseBody body = out -> catalogService.streamCatalog(filter, cursor, limit, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+}
@@ -1,9 +1,14 @@
 package com.mobydigital.academy.news.controller;
 
 import com.mobydigital.academy.news.dto.Audience;
+import com.mobydigital.academy.news.dto.ImageFormat;
 import com.mobydigital.academy.news.dto.NewsDto;
+import com.mobydigital.academy.news.dto.ImageSize;
 import com.mobydigital.academy.news.service.ContentfulService;
+import com.mobydigital.academy.news.service.FeedEncodingService;
+import com.mobydigital.academy.news.service.ImageUrlService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.ExampleObject;
@@ -11,12 +16,17 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.AllArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/contentful")
@@ -28,6 +38,8 @@ import java.util.List;
 public class ContentfulController {
 
     private final ContentfulService service;
+    private final ImageUrlService imageUrlService;
+    private final FeedEncodingService feedEncodingService;
 
     @Operation(
             summary = "Obtener todas las noticias activas para la mobyapp",
@@ -43,6 +55,15 @@ public class ContentfulController {
                                     array = @ArraySchema(schema = @Schema(implementation = NewsDto.class))
                             )
                     ),
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Mismo listado en CBOR o Smile: cada noticia es un array posicional "
+                                    + "(orden de NewsWireDto) y las fechas van en epoch millis",
+                            content = {
+                                    @Content(mediaType = FeedEncodingService.APPLICATION_CBOR_VALUE),
+                                    @Content(mediaType = FeedEncodingService.APPLICATION_SMILE_VALUE)
+                            }
+                    ),
                     @ApiResponse(
                             responseCode = "204",
                             description = "No hay noticias disponibles para la audiencia de la app",
@@ -71,11 +92,13 @@ public class ContentfulController {
             }
     )
     @GetMapping("/news/app")
-    public ResponseEntity<List<NewsDto>> getNewsApp() {
-        List<NewsDto> news = service.buildFinalNews(Audience.MOBY_APP);
-        return (news == null || news.isEmpty())
-                ? ResponseEntity.noContent().build()
-                : ResponseEntity.ok(news);
+    public ResponseEntity<?> getNewsApp(
+            @Parameter(description = "Ancho del viewport del cliente en píxeles, para adaptar las imágenes.") @RequestParam(required = false) Integer width,
+            @Parameter(description = "Densidad de píxeles del dispositivo (device pixel ratio).") @RequestParam(required = false) Double dpr,
+            @Parameter(description = "Formato de imagen preferido: jpg, png, webp o avif.") @RequestParam(required = false) String format,
+            @Parameter(description = "Identificador de usuario o sesión; fija un orden estable de las novedades fijas para ese usuario.") @RequestParam(required = false) String rotationKey,
+            @Parameter(description = "application/json (por defecto), application/cbor o application/x-jackson-smile.") @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        return buildResponse(Audience.MOBY_APP, ImageUrlService.sizeFor(width, dpr), ImageFormat.from(format), rotationKey, accept);
     }
 
     @Operation(
@@ -91,6 +114,15 @@ public class ContentfulController {
                                     array = @ArraySchema(schema = @Schema(implementation = NewsDto.class))
                             )
                     ),
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Mismo listado en CBOR o Smile: cada noticia es un array posicional "
+                                    + "(orden de NewsWireDto) y las fechas van en epoch millis",
+                            content = {
+                                    @Content(mediaType = FeedEncodingService.APPLICATION_CBOR_VALUE),
+                                    @Content(mediaType = FeedEncodingService.APPLICATION_SMILE_VALUE)
+                            }
+                    ),
                     @ApiResponse(
                             responseCode = "204",
                             description = "No hay noticias disponibles para la audiencia web",
@@ -119,10 +151,64 @@ public class ContentfulController {
             }
     )
     @GetMapping("/news/web")
-    public ResponseEntity<List<NewsDto>> getNewsWeb() {
-        List<NewsDto> news = service.buildFinalNews(Audience.MOBY_WEB);
-        return (news == null || news.isEmpty())
+    public ResponseEntity<?> getNewsWeb(
+            @Parameter(description = "Ancho del viewport del cliente en píxeles, para adaptar las imágenes.") @RequestParam(required = false) Integer width,
+            @Parameter(description = "Densidad de píxeles del dispositivo (device pixel ratio).") @RequestParam(required = false) Double dpr,
+            @Parameter(description = "Formato de imagen preferido: jpg, png, webp o avif.") @RequestParam(required = false) String format,
+            @Parameter(description = "Identificador de usuario o sesión; fija un orden estable de las novedades fijas para ese usuario.") @RequestParam(required = false) String rotationKey,
+            @Parameter(description = "application/json (por defecto), application/cbor o application/x-jackson-smile.") @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        return buildResponse(Audience.MOBY_WEB, ImageUrlService.sizeFor(width, dpr), ImageFormat.from(format), rotationKey, accept);
+    }
+
+    @Operation(
+            summary = "Buscar noticias por título y descripción",
+            description = "Búsqueda en memoria; solo consulta a Contentful si el estado replicado no está disponible. "
+                    + "Ignora mayúsculas y tildes, cada término de 3 o más letras matchea por prefijo (los más cortos, "
+                    + "como palabra completa) y deben aparecer todos. Solo devuelve noticias activas y vigentes.",
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Noticias que coinciden con la búsqueda",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    array = @ArraySchema(schema = @Schema(implementation = NewsDto.class))
+                            )
+                    ),
+                    @ApiResponse(
+                            responseCode = "204",
+                            description = "No hay noticias que coincidan con la búsqueda",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(example = "")
+                            )
+                    )
+            }
+    )
+    @GetMapping("/news/search")
+    public ResponseEntity<List<NewsDto>> searchNews(
+            @Parameter(description = "Texto a buscar.", example = "learning spri") @RequestParam("q") String query,
+            @Parameter(description = "Audiencia destino (MOBY_APP o MOBY_WEB); sin valor busca en ambas.") @RequestParam(required = false) Audience audience,
+            @Parameter(description = "Cantidad máxima de resultados (máximo 100).") @RequestParam(defaultValue = "20") int limit) {
+        List<NewsDto> news = service.searchNews(query, audience, Math.min(limit, 100));
+        return news.isEmpty()
                 ? ResponseEntity.noContent().build()
                 : ResponseEntity.ok(news);
     }
+
+    private ResponseEntity<?> buildResponse(Audience audience, ImageSize size, ImageFormat format,
+                                            String rotationKey, String accept) {
+        Optional<MediaType> binary = feedEncodingService.negotiate(accept);
+        if (binary.isPresent()) {
+            byte[] body = feedEncodingService.encode(audience, binary.get(), size, format, rotationKey);
+            return (body == null)
+                    ? ResponseEntity.noContent().build()
+                    : ResponseEntity.ok().contentType(binary.get()).header(HttpHeaders.VARY, HttpHeaders.ACCEPT).body(body);
+        }
+
+        // JSON explícito: sin esto el converter CBOR de Spring podría serializar NewsDto con nombres de campo
+        List<NewsDto> news = imageUrlService.adapt(service.buildFinalNews(audience, rotationKey), size, format);
+        return (news == null || news.isEmpty())
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).header(HttpHeaders.VARY, HttpHeaders.ACCEPT).body(news);
+    }
 }
@@ -1,21 +1,32 @@
 package com.mobydigital.academy.news.controller;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.mobydigital.academy.news.dto.AssetMetadata;
 import com.mobydigital.academy.news.dto.NewsDto;
+import com.mobydigital.academy.news.dto.WebhookEvent;
+import com.mobydigital.academy.news.service.AssetCacheService;
+import com.mobydigital.academy.news.service.CdaCrossCheckService;
 import com.mobydigital.academy.news.service.ContentfulService;
+import com.mobydigital.academy.news.service.FeedStateService;
+import com.mobydigital.academy.news.service.NewsMapper;
 import com.mobydigital.academy.news.service.NotificationService;
+import com.mobydigital.academy.news.service.WebhookDeduplicator;
+import com.mobydigital.academy.news.service.WebhookPayloadParser;
 
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import java.util.Map;
-import java.util.Optional;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/contentful/webhook")
@@ -25,6 +36,24 @@ public class WebhookController {
 
     private final ContentfulService contentfulService;
     private final NotificationService notificationService;
+    private final AssetCacheService assetCacheService;
+    private final FeedStateService feedStateService;
+    private final WebhookPayloadParser payloadParser;
+    private final WebhookDeduplicator webhookDeduplicator;
+    private final NewsMapper newsMapper;
+    private final CdaCrossCheckService crossCheckService;
+    private final ObservationRegistry observationRegistry;
+
+    private static final int IN_FLIGHT_RETRY_AFTER_SECONDS = 5;
+
+    private static final Set<String> FEED_CONTENT_TYPES =
+            Set.of(ContentfulService.CONTENT_TYPE_NEWS, ContentfulService.CONTENT_TYPE_FIJAS);
+
+    private static final Set<String> CHANGES_DELIVERED_CONTENT = Set.of(
+            "ContentManagement.Entry.publish",
+            "ContentManagement.Entry.unpublish",
+            "ContentManagement.Asset.publish",
+            "ContentManagement.Asset.unpublish");
 
     @Operation(summary = "Endpoint de prueba para enviar un mensaje a Kafka.",
             description = "Este endpoint recibe un mensaje en el cuerpo de la solicitud y lo envía a un topic de Kafka.")
@@ -47,33 +76,79 @@ public class WebhookController {
     @PostMapping
     public ResponseEntity<String> handleContentfulWebhook  (
             @Parameter(description = "El topic del webhook de Contentful, que indica el tipo de evento.") @RequestHeader("X-Contentful-Topic") String topic,
-            @Parameter(description = "El payload del webhook, que contiene los datos del evento.") @RequestBody(required = false) Map<String, Object> payload) throws RuntimeException, JsonProcessingException {
+            @Parameter(description = "Identificador único de la entrega, repetido por Contentful en los reintentos.") @RequestHeader(value = "X-Contentful-Idempotency-Key", required = false) String deliveryId,
+            @Parameter(description = "El payload del webhook, que contiene los datos del evento.") @RequestBody(required = false) byte[] body) throws RuntimeException, JsonProcessingException {
+
+        WebhookEvent event = payloadParser.parse(topic, deliveryId, body);
+        log.info("Webhook recibido. Topic={} id={} revision={}", topic, event.getEntityId(), event.getRevision());
+
+        // Span raíz del procesamiento: CDA, armado del feed y Kafka quedan como hijos
+        Observation observation = Observation.createNotStarted("news.webhook", observationRegistry)
+                .contextualName("handleContentfulWebhook")
+                .lowCardinalityKeyValue("topic", String.valueOf(topic))
+                .highCardinalityKeyValue("entry.id", String.valueOf(event.getEntityId()))
+                .start();
+        try (Observation.Scope scope = observation.openScope()) {
+            return processWebhook(event, body);
+        } catch (RuntimeException | JsonProcessingException e) {
+            observation.error(e);
+            throw e;
+        } finally {
+            observation.stop();
+        }
+    }
 
-        log.info("Webhook recibido. Topic={}", topic);
-        log.info("Payload={}", payload);
-        // 1) Siempre invalidamos cache si es Entry.*
-        if (topic != null && topic.startsWith("ContentManagement.Entry.")) {
-            contentfulService.evictNewsCache();
+    private ResponseEntity<String> processWebhook(WebhookEvent event, byte[] body) throws JsonProcessingException {
+        // 1) Reentregas y eventos fuera de orden se confirman sin hacer trabajo
+        WebhookDeduplicator.Claim claim = webhookDeduplicator.tryClaim(event);
+        if (claim == WebhookDeduplicator.Claim.DUPLICATE) {
+            log.info("-> Webhook duplicado o desactualizado, se ignora.");
+            return ResponseEntity.ok("Webhook ya procesado.");
+        }
+        if (claim == WebhookDeduplicator.Claim.IN_FLIGHT) {
+            // Reentrega mientras el original sigue en curso: Contentful la reintenta más tarde
+            log.info("-> Webhook en proceso por otra entrega, se pide reintentar.");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(IN_FLIGHT_RETRY_AFTER_SECONDS))
+                    .body("Webhook en proceso.");
         }
 
-        // 2) Intentamos extraer el entryId del payload (depende de la plantilla del webhook)
-        String entryId = extractEntryId(payload);
+        boolean processed = false;
+        try {
+            ResponseEntity<String> response = applyEvent(event, body);
+            webhookDeduplicator.markProcessed(event);
+            processed = true;
+            return response;
+        } finally {
+            if (!processed) webhookDeduplicator.release(event);
+        }
+    }
 
+    private ResponseEntity<String> applyEvent(WebhookEvent event, byte[] body) throws JsonProcessingException {
+        String topic = event.getTopic();
+        String entryId = event.getEntityId();
 
+        // 2) Solo publish/unpublish cambian lo que expone la CDA; save/auto_save no invalidan la caché
+        if (CHANGES_DELIVERED_CONTENT.contains(topic)) {
+            contentfulService.evictNewsCache();
+        }
+
+        // Un asset modificado invalida sus metadatos y cambia la imagen de las entradas que lo usan
+        if ("ContentManagement.Asset.publish".equals(topic) || "ContentManagement.Asset.unpublish".equals(topic)) {
+            refreshAsset(topic, entryId, body);
+        }
 
         // 3) Actuar según el tipo de evento
         if ("ContentManagement.Entry.publish".equals(topic)) {
             log.info("-> PUBLICADA o REPUBLICADA.");
             if (entryId != null) {
-                NewsDto dto = fetchWithRetry(entryId); // backoff contra la CDN
-                if (dto != null) {
-                    notificationService.notifyUpsert(dto, entryId);
-                }
+                publishEntry(event, body);
             }
         } else if ("ContentManagement.Entry.unpublish".equals(topic)) {
             log.info("-> DESPUBLICADA: Una novedad ha dejado de ser publicada.");
             if (entryId != null) {
-                NewsDto dto = fetchWithRetry(entryId);
+                // La CDA ya no tiene la entrada: se saca del feed primero y se notifica con la última versión conocida
+                NewsDto dto = feedStateService.publishRemoval(entryId, event.getRevision());
                 notificationService.notifyRemoved(dto,entryId);
             }
         } else {
@@ -85,40 +160,51 @@ public class WebhookController {
     }
 
 
-    private NewsDto fetchWithRetry(String entryId) throws RuntimeException {
-        int attempts = 5;
-        long delay = 300;
-        for (int i = 0; i < attempts; i++) {
-            Optional<NewsDto> dtoOpt = contentfulService.getNewsById(entryId);
-            if (dtoOpt.isPresent()) return dtoOpt.get();
-            try {
-                Thread.sleep(delay);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt(); // restaura el estado de interrupción
-                log.warn("Thread interrumpido mientras dormía: {}", e.getMessage());
-            }
-            delay *= 2;
+    private void publishEntry(WebhookEvent event, byte[] body) throws JsonProcessingException {
+        String entryId = event.getEntityId();
+        String contentType = event.getContentType();
+        if (contentType != null && !FEED_CONTENT_TYPES.contains(contentType)) {
+            log.warn("-> La entrada {} es del content type {}; no se publica en el feed.", entryId, contentType);
+            return;
         }
-        log.warn("CDA aún no refleja los cambios para {}", entryId);
-        return null;
+        NewsDto dto = mapPublishedEntry(body);
+        if (dto == null || contentType == null) {
+            // Plantilla sin fields o sin content type: se trae de la CDA en segundo plano, con backoff contra la CDN
+            crossCheckService.scheduleFetch(entryId, contentType, event.getRevision());
+            return;
+        }
+        // El payload ya trae los fields: se publica sin esperar a que la CDN refleje el cambio
+        feedStateService.publishUpsert(contentType, dto, event.getRevision());
+        notificationService.notifyUpsert(dto, entryId);
+        crossCheckService.schedule(contentType, dto, event.getRevision());
     }
 
-    private String extractEntryId(Map<String, Object> payload) {
-        if (payload == null) return null;
-
-        // payload.sys.id
-        if (payload.get("sys") instanceof Map<?, ?> sys
-                && sys.get("id") instanceof String id) {
-            return id;
+    private void refreshAsset(String topic, String assetId, byte[] body) throws JsonProcessingException {
+        if (assetId == null) return;
+        AssetMetadata asset = null;
+        if ("ContentManagement.Asset.publish".equals(topic)) {
+            JsonNode entity = payloadParser.readEntity(body);
+            asset = assetCacheService.refresh(assetId, entity == null ? null : newsMapper.assetFromManagementPayload(entity));
+            if (asset == null) {
+                log.warn("No se pudieron resolver los metadatos del asset {}; las entradas conservan la imagen anterior.", assetId);
+                return;
+            }
+        } else {
+            assetCacheService.evict(assetId);
         }
-
-        // payload.entity.sys.id
-        if (payload.get("entity") instanceof Map<?, ?> entity
-                && entity.get("sys") instanceof Map<?, ?> sys
-                && sys.get("id") instanceof String id) {
-            return id;
+        for (NewsDto updated : feedStateService.publishAssetChange(assetId, asset)) {
+            notificationService.notifyUpsert(updated, updated.getId());
         }
+    }
 
-        return null;
+    private NewsDto mapPublishedEntry(byte[] body) {
+        JsonNode entity = payloadParser.readEntity(body);
+        if (entity == null) return null;
+        try {
+            return newsMapper.fromManagementPayload(entity);
+        } catch (RuntimeException e) {
+            log.warn("No se pudo mapear el payload del webhook: {}", e.getMessage());
+            return null;
+        }
     }
-}
\ No newline at end of file
+}
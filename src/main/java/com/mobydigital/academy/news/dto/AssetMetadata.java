@@ -0,0 +1,20 @@
+package com.mobydigital.academy.news.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// Metadatos mínimos de un asset de Contentful, compartidos entre refrescos del feed y replicados en el topic de estado
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class AssetMetadata {
+
+    private String id;
+    private Integer revision;
+    private String url;
+    private String contentType;
+    private Integer width;
+}
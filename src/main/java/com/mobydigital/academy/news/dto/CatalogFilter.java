@@ -0,0 +1,32 @@
+package com.mobydigital.academy.news.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.ZonedDateTime;
+
+@Getter
+@AllArgsConstructor
+@Schema(description = "Filtros opcionales aplicados al catálogo completo de noticias.")
+public class CatalogFilter {
+
+    @Schema(description = "Audiencia destino; si es null se devuelven ambas.", example = "MOBY_APP")
+    private final Audience audience;
+
+    @Schema(description = "Si se indica, solo devuelve noticias con esa prioridad.", example = "true")
+    private final Boolean priority;
+
+    @Schema(description = "Solo devuelve noticias que expiran antes de esta fecha. Las novedades fijas no vencen, "
+            + "así que con este filtro quedan fuera del catálogo.", example = "2025-12-31T23:59:59Z")
+    private final ZonedDateTime expiringBefore;
+
+    public boolean matches(NewsDto dto) {
+        if (audience == Audience.MOBY_APP && !Boolean.TRUE.equals(dto.getIsMobyApp())) return false;
+        if (audience == Audience.MOBY_WEB && !Boolean.TRUE.equals(dto.getIsMobyWeb())) return false;
+        if (priority != null && !priority.equals(dto.getPriority())) return false;
+        // Sin fecha de expiración (toda novedad fija) nunca se cumple el filtro de vencimiento
+        return expiringBefore == null
+                || (dto.getExpirationDate() != null && !dto.getExpirationDate().isAfter(expiringBefore));
+    }
+}
@@ -0,0 +1,34 @@
+package com.mobydigital.academy.news.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(
+        name = "ImageFormat",
+        description = "Output format requested to the Contentful Images API (fm parameter)."
+)
+public enum ImageFormat {
+    JPG("jpg"), PNG("png"), WEBP("webp"), AVIF("avif");
+
+    private final String param;
+
+    ImageFormat(String param) {
+        this.param = param;
+    }
+
+    public String getParam() {
+        return param;
+    }
+
+    // Parseo tolerante: acepta "webp", "WEBP" o "image/webp"; formatos desconocidos se ignoran en vez de devolver error
+    public static ImageFormat from(String value) {
+        if (value == null || value.isBlank()) return null;
+        String name = value.trim();
+        if (name.regionMatches(true, 0, "image/", 0, 6)) name = name.substring(6);
+        for (ImageFormat format : values()) {
+            if (format.param.equalsIgnoreCase(name) || format.name().equalsIgnoreCase(name)) {
+                return format;
+            }
+        }
+        return null;
+    }
+}
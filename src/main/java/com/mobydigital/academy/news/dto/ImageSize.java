@@ -0,0 +1,29 @@
+package com.mobydigital.academy.news.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(
+        name = "ImageSize",
+        description = "Size bucket used to request transformed images from the Contentful Images API."
+)
+public enum ImageSize {
+    SMALL(320), MEDIUM(640), LARGE(1080), XLARGE(1920);
+
+    private final int width;
+
+    ImageSize(int width) {
+        this.width = width;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    // Devuelve el bucket más chico que cubre el ancho pedido (o el más grande si lo supera)
+    public static ImageSize forWidth(int requestedWidth) {
+        for (ImageSize size : values()) {
+            if (size.width >= requestedWidth) return size;
+        }
+        return XLARGE;
+    }
+}
@@ -1,6 +1,8 @@
 package com.mobydigital.academy.news.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.NoArgsConstructor;
@@ -11,6 +13,7 @@ import java.time.ZonedDateTime;
 @Setter
 @AllArgsConstructor
 @NoArgsConstructor
+@Builder(toBuilder = true)
 @Schema(description = "Representa una noticia obtenida desde Contentful.")
 public class NewsDto {
 
@@ -90,4 +93,9 @@ public class NewsDto {
             requiredMode = Schema.RequiredMode.REQUIRED
     )
     private Boolean priority;
+
+    // Metadatos del asset de la imagen: las URLs por tamaño y formato se arman a partir de acá; no se serializan
+    @JsonIgnore
+    @Schema(hidden = true)
+    private AssetMetadata image;
 }
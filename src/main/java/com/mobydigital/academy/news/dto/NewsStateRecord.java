@@ -0,0 +1,21 @@
+package com.mobydigital.academy.news.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// Valor publicado en el topic compactado de estado (clave = id de la entrada; valor null = borrada)
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class NewsStateRecord {
+
+    private String contentType;
+    private NewsDto item;
+    // Los metadatos del asset no forman parte del JSON de NewsDto, se replican aparte
+    private AssetMetadata image;
+    // sys.revision publicada; null en registros anteriores a que se replicara
+    private Integer revision;
+}
@@ -0,0 +1,49 @@
+package com.mobydigital.academy.news.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Representación compacta de {@link NewsDto} para CBOR/Smile: se serializa como array posicional
+ * (el orden de campos es el esquema, no se repiten nombres) y las fechas viajan en epoch millis.
+ * Agregar campos solo al final para no romper a los clientes existentes.
+ */
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonFormat(shape = JsonFormat.Shape.ARRAY)
+@JsonPropertyOrder({"id", "title", "active", "imageUrl", "description", "isMobyWeb", "isMobyApp",
+        "url", "expirationDate", "createdAt", "priority"})
+public class NewsWireDto {
+
+    private String id;
+    private String title;
+    private Boolean active;
+    private String imageUrl;
+    private String description;
+    private Boolean isMobyWeb;
+    private Boolean isMobyApp;
+    private String url;
+    private Long expirationDate;
+    private Long createdAt;
+    private Boolean priority;
+
+    public static NewsWireDto from(NewsDto dto) {
+        return new NewsWireDto(
+                dto.getId(),
+                dto.getTitle(),
+                dto.getActive(),
+                dto.getImageUrl(),
+                dto.getDescription(),
+                dto.getIsMobyWeb(),
+                dto.getIsMobyApp(),
+                dto.getUrl(),
+                dto.getExpirationDate() != null ? dto.getExpirationDate().toInstant().toEpochMilli() : null,
+                dto.getCreatedAt() != null ? dto.getCreatedAt().toInstant().toEpochMilli() : null,
+                dto.getPriority()
+        );
+    }
+}
@@ -0,0 +1,23 @@
+package com.mobydigital.academy.news.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Datos mínimos de un webhook de Contentful, extraídos del bloque sys sin bindear el payload completo
+@Getter
+@AllArgsConstructor
+public class WebhookEvent {
+
+    private final String topic;
+    private final String deliveryId;
+    private final String entityId;
+    private final Integer revision;
+    private final String contentType;
+
+    // "ContentManagement.Entry.publish" -> "publish"
+    public String getAction() {
+        if (topic == null) return null;
+        int dot = topic.lastIndexOf('.');
+        return dot >= 0 ? topic.substring(dot + 1) : topic;
+    }
+}
@@ -17,6 +17,23 @@ import java.util.Arrays;
 public class GlobalExceptionHandler {
 
 
+    @ExceptionHandler(InvalidCursorException.class)
+    @ApiResponse(
+            responseCode = "400",
+            description = "Invalid catalog cursor",
+            content = @Content(
+                    schema = @Schema(implementation = String.class),
+                    examples = @ExampleObject(value = "Invalid request: Cursor inválido: abc")
+            )
+    )
+    public ResponseEntity<String> handleInvalidCursor(InvalidCursorException ex) {
+        log.warn("Invalid request: {}", ex.getMessage());
+
+        return ResponseEntity
+                .status(HttpStatus.BAD_REQUEST)
+                .body("Invalid request: " + ex.getMessage());
+    }
+
     @ExceptionHandler(RuntimeException.class)
     @ApiResponse(
             responseCode = "500",
@@ -0,0 +1,9 @@
+package com.mobydigital.academy.news.exception;
+
+// Cursor de paginación del catálogo que no se pudo decodificar o que está fuera de rango
+public class InvalidCursorException extends RuntimeException {
+
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,94 @@
+package com.mobydigital.academy.news.service;
+
+import com.contentful.java.cda.CDAAsset;
+import com.contentful.java.cda.CDAClient;
+import com.mobydigital.academy.news.dto.AssetMetadata;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AssetCacheService {
+
+    private final CDAClient client;
+    private final ObservationRegistry observationRegistry;
+
+    // Cache en memoria compartida por todos los refrescos del feed (clave = id del asset)
+    private final Map<String, AssetMetadata> assets = new ConcurrentHashMap<>();
+
+    // Devuelve los metadatos del asset, reutilizando los ya resueltos si la revisión no cambió
+    public AssetMetadata resolve(CDAAsset asset) {
+        if (asset == null) return null;
+        Integer revision = toInteger(asset.getAttribute("revision"));
+        AssetMetadata cached = assets.get(asset.id());
+        if (cached != null && Objects.equals(cached.getRevision(), revision)) {
+            return cached;
+        }
+        AssetMetadata metadata = new AssetMetadata(
+                asset.id(),
+                revision,
+                asset.url(),
+                asset.mimeType(),
+                imageWidth(asset)
+        );
+        assets.put(asset.id(), metadata);
+        return metadata;
+    }
+
+    // Para links de webhooks: solo se consulta la CDA si el asset no está en caché
+    public AssetMetadata resolveById(String assetId) {
+        AssetMetadata cached = assets.get(assetId);
+        if (cached != null) return cached;
+        try {
+            CDAAsset asset = Observation.createNotStarted("contentful.cda", observationRegistry)
+                    .contextualName("contentful.cda getAsset")
+                    .lowCardinalityKeyValue("operation", "getAsset")
+                    .observe(() -> client.fetch(CDAAsset.class).one(assetId));
+            return resolve(asset);
+        } catch (Exception e) {
+            log.warn("No se pudo obtener el asset CDA id={}: {}", assetId, e.getMessage());
+            return null;
+        }
+    }
+
+    // Webhook de publish de un asset: se reemplazan los metadatos por los del payload o, si no vienen, se releen de la CDA
+    public AssetMetadata refresh(String assetId, AssetMetadata fromPayload) {
+        evict(assetId);
+        if (fromPayload != null) {
+            assets.put(assetId, fromPayload);
+            return fromPayload;
+        }
+        return resolveById(assetId);
+    }
+
+    // Se invoca desde los webhooks de assets para no servir URLs viejas
+    public void evict(String assetId) {
+        if (assetId != null && assets.remove(assetId) != null) {
+            log.info("Asset {} eliminado de la caché.", assetId);
+        }
+    }
+
+    private Integer imageWidth(CDAAsset asset) {
+        try {
+            Map<String, Object> details = asset.fileField("details");
+            if (details != null && details.get("image") instanceof Map<?, ?> image) {
+                return toInteger(image.get("width"));
+            }
+        } catch (Exception e) {
+            log.debug("No se pudieron leer los detalles del asset {}: {}", asset.id(), e.getMessage());
+        }
+        return null;
+    }
+
+    private static Integer toInteger(Object value) {
+        return (value instanceof Number n) ? n.intValue() : null;
+    }
+}
@@ -0,0 +1,188 @@
+package com.mobydigital.academy.news.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mobydigital.academy.news.dto.CatalogFilter;
+import com.mobydigital.academy.news.dto.NewsDto;
+import com.mobydigital.academy.news.exception.InvalidCursorException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Catálogo completo (news + novedadesFijas) para otros microservicios, escrito en streaming página a página.
+ * Se pagina por keyset sobre (creación, id): el cursor guarda la última entrada entregada, así las altas y bajas
+ * durante una exportación larga no duplican ni saltean entradas. Con el estado replicado listo se lee de memoria;
+ * si no, de la CDA.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CatalogService {
+
+    // Orden de recorrido del catálogo: primero las noticias, después las fijas
+    private static final List<String> CONTENT_TYPES =
+            List.of(ContentfulService.CONTENT_TYPE_NEWS, ContentfulService.CONTENT_TYPE_FIJAS);
+    static final int PAGE_SIZE = 100;
+    public static final int MAX_LIMIT = 1000;
+
+    // createdAt del DTO tiene precisión de segundos; el id desempata
+    private static final Comparator<Key> KEY_ORDER = Comparator.comparingLong(Key::createdAt).thenComparing(Key::id);
+
+    private final ContentfulService contentfulService;
+    private final NewsStateStore stateStore;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Escribe {"items":[...],"nextCursor":...} sobre el stream sin materializar el catálogo:
+     * en memoria solo vive la página que se está recorriendo.
+     */
+    public void streamCatalog(CatalogFilter filter, String cursor, int limit, OutputStream out) throws IOException {
+        Position position = decodeCursor(cursor);
+        int remaining = Math.max(1, Math.min(limit, MAX_LIMIT));
+        ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
+
+        JsonGenerator gen = objectMapper.getFactory().createGenerator(out);
+        // Si una página falla después de haber enviado otras, el cuerpo queda sin cerrar: el cliente ve un JSON
+        // inválido en lugar de una respuesta bien formada, sin nextCursor, que parece completa
+        gen.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+        try (gen) {
+            gen.writeStartObject();
+            gen.writeArrayFieldStart("items");
+
+            while (position != null && remaining > 0) {
+                String contentType = CONTENT_TYPES.get(position.typeIndex());
+                // Las fijas no tienen vencimiento: con expiringBefore nunca matchean y no se leen
+                Page page = filter.getExpiringBefore() != null && !ContentfulService.CONTENT_TYPE_NEWS.equals(contentType)
+                        ? new Page(List.of(), true)
+                        : readPage(contentType, position.after(), filter.getExpiringBefore());
+
+                int consumed = 0;
+                Key after = position.after();
+                for (NewsDto dto : page.items()) {
+                    consumed++;
+                    after = keyOf(dto);
+                    if (isVisible(contentType, dto, now) && filter.matches(dto)) {
+                        objectMapper.writeValue(gen, dto);
+                        if (--remaining == 0) break;
+                    }
+                }
+                gen.flush();
+
+                if (consumed < page.items().size() || !page.last()) {
+                    position = new Position(position.typeIndex(), after);
+                } else if (position.typeIndex() + 1 < CONTENT_TYPES.size()) {
+                    position = new Position(position.typeIndex() + 1, null);
+                } else {
+                    position = null;
+                }
+            }
+
+            gen.writeEndArray();
+            if (position != null) {
+                gen.writeStringField("nextCursor", encodeCursor(position));
+            } else {
+                gen.writeNullField("nextCursor");
+            }
+            gen.writeEndObject();
+        }
+    }
+
+    // Se valida antes de empezar a escribir: una vez abierto el stream ya no se puede responder 400
+    public void checkCursor(String cursor) {
+        decodeCursor(cursor);
+    }
+
+    // Entradas posteriores al cursor, en orden de keyset
+    private Page readPage(String contentType, Key after, ZonedDateTime expiringBefore) {
+        if (stateStore.isReady()) {
+            List<NewsDto> items = stateStore.byContentType(contentType).stream()
+                    .filter(dto -> after == null || KEY_ORDER.compare(keyOf(dto), after) > 0)
+                    .sorted(Comparator.comparing(CatalogService::keyOf, KEY_ORDER))
+                    .limit(PAGE_SIZE)
+                    .toList();
+            return new Page(items, items.size() < PAGE_SIZE);
+        }
+
+        ZonedDateTime createdFrom = (after == null) ? null : Instant.ofEpochSecond(after.createdAt()).atZone(ZoneOffset.UTC);
+        List<NewsDto> fetched = contentfulService.fetchCatalogPageFrom(contentType, createdFrom, PAGE_SIZE, expiringBefore);
+        boolean last = fetched.size() < PAGE_SIZE;
+        List<NewsDto> items = fetched;
+        if (!last) {
+            // La CDA ordena por milisegundos y el keyset por segundos: el último segundo de una página llena puede
+            // estar incompleto, así que se deja entero para la próxima consulta
+            long lastSecond = keyOf(fetched.get(fetched.size() - 1)).createdAt();
+            List<NewsDto> complete = fetched.stream().filter(dto -> keyOf(dto).createdAt() < lastSecond).toList();
+            if (!complete.isEmpty()) items = complete;
+        }
+        items = items.stream()
+                .filter(dto -> after == null || KEY_ORDER.compare(keyOf(dto), after) > 0)
+                .sorted(Comparator.comparing(CatalogService::keyOf, KEY_ORDER))
+                .toList();
+        if (items.isEmpty() && !last) {
+            // Más de una página creada en el mismo segundo: no se puede avanzar por keyset
+            log.warn("Más de {} entradas {} creadas en el mismo segundo; se corta el recorrido.", PAGE_SIZE, contentType);
+            return new Page(items, true);
+        }
+        return new Page(items, last);
+    }
+
+    // Mismas reglas que el feed: las noticias deben estar activas y vigentes; las fijas siempre se incluyen
+    private boolean isVisible(String contentType, NewsDto dto, ZonedDateTime now) {
+        if (!ContentfulService.CONTENT_TYPE_NEWS.equals(contentType)) return true;
+        return Boolean.TRUE.equals(dto.getActive())
+                && (dto.getExpirationDate() == null || dto.getExpirationDate().isAfter(now));
+    }
+
+    private static Key keyOf(NewsDto dto) {
+        long createdAt = dto.getCreatedAt() == null ? 0 : dto.getCreatedAt().toEpochSecond();
+        return new Key(createdAt, dto.getId());
+    }
+
+    // "tipo" al empezar un tipo de contenido, "tipo:creación:id" después de la última entrada entregada
+    private String encodeCursor(Position position) {
+        String raw = position.after() == null
+                ? String.valueOf(position.typeIndex())
+                : position.typeIndex() + ":" + position.after().createdAt() + ":" + position.after().id();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Position decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) return new Position(0, null);
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":", 3);
+            int typeIndex = Integer.parseInt(parts[0]);
+            if (typeIndex >= 0 && typeIndex < CONTENT_TYPES.size()) {
+                if (parts.length == 1) return new Position(typeIndex, null);
+                long createdAt = Long.parseLong(parts[1]);
+                if (parts.length == 3 && createdAt >= 0 && !parts[2].isBlank()) {
+                    return new Position(typeIndex, new Key(createdAt, parts[2]));
+                }
+            }
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            // Base64 o números mal formados; se informa igual que un cursor fuera de rango
+        }
+        log.warn("Cursor de catálogo inválido: {}", cursor);
+        throw new InvalidCursorException("Cursor inválido: " + cursor);
+    }
+
+    private record Key(long createdAt, String id) {
+    }
+
+    private record Position(int typeIndex, Key after) {
+    }
+
+    private record Page(List<NewsDto> items, boolean last) {
+    }
+}
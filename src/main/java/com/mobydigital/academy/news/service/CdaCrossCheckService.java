@@ -0,0 +1,195 @@
+package com.mobydigital.academy.news.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.mobydigital.academy.news.dto.NewsDto;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.ZonedDateTime;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * Verifica en segundo plano, contra la CDA, las novedades publicadas a partir del payload del webhook.
+ * Solo se compara una copia de la CDA con revisión igual o mayor a la del payload: una revisión menor
+ * es la versión anterior que la CDN todavía sirve y se reintenta. Si la copia al día difiere, se corrige
+ * el estado y se vuelve a notificar, salvo que la entrada ya se haya despublicado o reemplazado.
+ * También trae de la CDA, con el mismo backoff, las entradas cuyo webhook llegó sin fields.
+ * Si la CDA no refleja la revisión tras los reintentos, el span queda con error y la entrada queda
+ * como la dejó el webhook hasta la reconciliación periódica del estado.
+ */
+@Service
+@Slf4j
+public class CdaCrossCheckService {
+
+    private static final int ATTEMPTS = 5;
+    private static final Set<String> CONTENT_TYPES =
+            Set.of(ContentfulService.CONTENT_TYPE_NEWS, ContentfulService.CONTENT_TYPE_FIJAS);
+
+    private final ContentfulService contentfulService;
+    private final FeedStateService feedStateService;
+    private final NewsStateStore stateStore;
+    private final NotificationService notificationService;
+    private final ObservationRegistry observationRegistry;
+
+    // 300 ms duplicándose en cada intento: ~9,3 s en total antes de darse por vencido
+    private long initialDelayMs = 300;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "cda-cross-check");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public CdaCrossCheckService(ContentfulService contentfulService,
+                                FeedStateService feedStateService,
+                                NewsStateStore stateStore,
+                                NotificationService notificationService,
+                                ObservationRegistry observationRegistry) {
+        this.contentfulService = contentfulService;
+        this.feedStateService = feedStateService;
+        this.stateStore = stateStore;
+        this.notificationService = notificationService;
+        this.observationRegistry = observationRegistry;
+    }
+
+    public void schedule(String contentType, NewsDto published, Integer revision) {
+        start("cdaCrossCheck", published.getId(), revision,
+                (observation, fromCda) -> correct(observation, contentType, published, revision, fromCda));
+    }
+
+    // Webhook sin fields: se publica la copia de la CDA cuando refleje la revisión. Sin contentType en el
+    // webhook se usa el de la entrada de la CDA
+    public void scheduleFetch(String entryId, String contentType, Integer revision) {
+        start("cdaFetch", entryId, revision,
+                (observation, fromCda) -> publishFetched(observation, contentType, fromCda));
+    }
+
+    private void start(String name, String entryId, Integer revision,
+                       BiConsumer<Observation, ContentfulService.PublishedNews> onCaughtUp) {
+        // El chequeo corre en otro thread: se cuelga explícitamente del span del webhook.
+        // Un único span abarca todos los reintentos y se cierra cuando el chequeo termina
+        Observation observation = Observation.createNotStarted("news.crosscheck", observationRegistry)
+                .contextualName(name)
+                .highCardinalityKeyValue("entry.id", String.valueOf(entryId))
+                .parentObservation(observationRegistry.getCurrentObservation())
+                .start();
+        scheduleAttempt(observation, () -> check(observation, entryId, revision, onCaughtUp, 1, initialDelayMs),
+                initialDelayMs);
+    }
+
+    private void scheduleAttempt(Observation observation, Runnable attempt, long delay) {
+        try {
+            scheduler.schedule(() -> observation.scoped(attempt), delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            observation.stop();
+        }
+    }
+
+    // Mismo backoff que antes se hacía en el request del webhook, pero sin bloquearlo
+    private void check(Observation observation, String entryId, Integer revision,
+                       BiConsumer<Observation, ContentfulService.PublishedNews> onCaughtUp, int attempt, long delay) {
+        boolean rescheduled = false;
+        try {
+            Optional<ContentfulService.PublishedNews> fromCda = contentfulService.getPublishedNews(entryId);
+            if (fromCda.isEmpty() || isBehind(fromCda.get(), revision)) {
+                if (attempt < ATTEMPTS) {
+                    scheduleAttempt(observation,
+                            () -> check(observation, entryId, revision, onCaughtUp, attempt + 1, delay * 2),
+                            delay * 2);
+                    rescheduled = true;
+                } else {
+                    String detail = fromCda.isEmpty() ? "no tiene la entrada" : "sigue en la revisión " + fromCda.get().revision();
+                    observation.error(new IllegalStateException("La CDA " + detail + " tras " + ATTEMPTS + " intentos"));
+                    log.warn("La CDA {} tras {} intentos para {} (revisión {}); la reconciliación del estado lo corregirá.",
+                            detail, ATTEMPTS, entryId, revision);
+                }
+                return;
+            }
+            onCaughtUp.accept(observation, fromCda.get());
+        } finally {
+            if (!rescheduled) observation.stop();
+        }
+    }
+
+    private void correct(Observation observation, String contentType, NewsDto published, Integer revision,
+                         ContentfulService.PublishedNews fromCda) {
+        NewsDto cda = fromCda.item();
+        if (revision == null || fromCda.revision() == null) {
+            // Sin revisiones no se puede saber cuál copia es la vigente: se conserva la del payload
+            log.debug("No se puede comparar la revisión de {} con la CDA; se omite la verificación.", published.getId());
+            return;
+        }
+        if (sameContent(published, cda)) return;
+        // Entre el webhook y este chequeo la entrada pudo despublicarse o recibir una revisión más nueva
+        if (stateStore.isSuperseded(cda.getId(), fromCda.revision())) {
+            log.info("La entrada {} ya se despublicó o reemplazó; no se corrige con la revisión {} de la CDA.",
+                    cda.getId(), fromCda.revision());
+            return;
+        }
+
+        log.warn("El payload del webhook difiere de la CDA para {}; se corrige con la versión de la CDA.", cda.getId());
+        publish(observation, contentType, fromCda);
+    }
+
+    private void publishFetched(Observation observation, String contentType, ContentfulService.PublishedNews fromCda) {
+        String type = (contentType != null) ? contentType : fromCda.contentType();
+        if (!CONTENT_TYPES.contains(type)) {
+            log.warn("La entrada {} es del content type {}; no se publica en el feed.", fromCda.item().getId(), type);
+            return;
+        }
+        if (stateStore.isSuperseded(fromCda.item().getId(), fromCda.revision())) {
+            log.info("La entrada {} ya se despublicó o reemplazó; no se publica la revisión {} de la CDA.",
+                    fromCda.item().getId(), fromCda.revision());
+            return;
+        }
+        publish(observation, type, fromCda);
+    }
+
+    private void publish(Observation observation, String contentType, ContentfulService.PublishedNews fromCda) {
+        NewsDto item = fromCda.item();
+        try {
+            // publishUpsert ya invalida la caché del feed
+            feedStateService.publishUpsert(contentType, item, fromCda.revision());
+            notificationService.notifyUpsert(item, item.getId());
+        } catch (JsonProcessingException | RuntimeException e) {
+            observation.error(e);
+            log.warn("No se pudo publicar la versión de la CDA de {}: {}", item.getId(), e.getMessage());
+        }
+    }
+
+    // La CDN todavía sirve una revisión anterior a la del webhook
+    private boolean isBehind(ContentfulService.PublishedNews fromCda, Integer revision) {
+        return revision != null && fromCda.revision() != null && fromCda.revision() < revision;
+    }
+
+    private boolean sameContent(NewsDto a, NewsDto b) {
+        return Objects.equals(a.getTitle(), b.getTitle())
+                && Objects.equals(a.getActive(), b.getActive())
+                && Objects.equals(a.getImageUrl(), b.getImageUrl())
+                && Objects.equals(a.getDescription(), b.getDescription())
+                && Objects.equals(a.getIsMobyWeb(), b.getIsMobyWeb())
+                && Objects.equals(a.getIsMobyApp(), b.getIsMobyApp())
+                && Objects.equals(a.getUrl(), b.getUrl())
+                && Objects.equals(a.getPriority(), b.getPriority())
+                && sameInstant(a.getExpirationDate(), b.getExpirationDate());
+    }
+
+    private boolean sameInstant(ZonedDateTime a, ZonedDateTime b) {
+        return (a == null || b == null) ? a == b : a.isEqual(b);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+}
@@ -1,27 +1,30 @@
 package com.mobydigital.academy.news.service;
 
 import com.contentful.java.cda.CDAArray;
-import com.contentful.java.cda.CDAAsset;
 import com.contentful.java.cda.CDAClient;
 import com.contentful.java.cda.CDAEntry;
+import com.contentful.java.cda.FetchQuery;
 import com.contentful.java.cma.CMAClient;
 import com.contentful.java.cma.model.CMAEntry;
 import com.mobydigital.academy.news.dto.Audience;
 import com.mobydigital.academy.news.dto.NewsDto;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import java.time.*;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeFormatterBuilder;
-import java.time.temporal.ChronoField;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
@@ -33,13 +36,29 @@ public class ContentfulService {
 
     private final CDAClient client;     //  Es para hacer operaciones ONLY READ en Contentful (CDA)
     private final CMAClient cmaClient;  // Es para hacer operaciones de gestión en Cntentful (Read-Write-Delete-Update) (CMA)
+    private final NewsMapper newsMapper;
+    private final NewsStateStore stateStore;
+    private final ObservationRegistry observationRegistry;
+
+    // Versión del feed: cambia cada vez que se invalida la caché de novedades
+    private final AtomicLong feedVersion = new AtomicLong();
+    private final Map<Audience, FeedSnapshot> snapshots = new ConcurrentHashMap<>();
+    // Reconstrucción en curso por audiencia: los requests concurrentes esperan la misma en vez de repetirla
+    private final Map<Audience, CompletableFuture<FeedSnapshot>> rebuilds = new ConcurrentHashMap<>();
+
+    // Cota de frescura del snapshot aunque no llegue ningún webhook (p. ej. noticias que expiran)
+    @Value("${news.feed.snapshot-ttl:60s}")
+    private Duration snapshotTtl;
 
     @Value("${contentful.spaceId}")
     private String spaceId;
     private static final String ENVIRONMENT_ID  = "master";
-    private static final String EXPIRATION_DATE_FIELD = "expiration_date";
-    private static final String CONTENT_TYPE_NEWS = "news";
-    private static final String CONTENT_TYPE_FIJAS= "novedadesFijas";
+    private static final int FEED_SIZE = 8;
+    private static final int SEARCH_FALLBACK_LIMIT = 100;
+    private static final int CDA_MAX_PAGE_SIZE = 1000;
+    private static final String EXPIRATION_DATE_FIELD = NewsMapper.EXPIRATION_DATE_FIELD;
+    public static final String CONTENT_TYPE_NEWS = "news";
+    public static final String CONTENT_TYPE_FIJAS= "novedadesFijas";
 
     // Comparación de fechas y prioridad
     private static final Comparator<NewsDto> PRIORITY_ORDER =
@@ -60,109 +79,155 @@ public class ContentfulService {
                             Comparator.nullsLast(Comparator.naturalOrder()))
                     .thenComparing(NewsDto::getCreatedAt).reversed();
 
-    private static final DateTimeFormatter FLEX_OFFSET =
-            new DateTimeFormatterBuilder()
-                    .appendPattern("yyyy-MM-dd'T'HH:mm")
-                    .optionalStart().appendLiteral(':').appendPattern("ss").optionalEnd()
-                    .optionalStart().appendFraction(ChronoField.NANO_OF_SECOND, 0, 9, true).optionalEnd()
-                    .appendOffset("+HH:MM", "Z")
-                    .toFormatter();
-
     @Autowired
-    public ContentfulService(CDAClient client, CMAClient cmaClient) {
+    public ContentfulService(CDAClient client, CMAClient cmaClient,
+                             NewsMapper newsMapper, NewsStateStore stateStore,
+                             ObservationRegistry observationRegistry) {
         this.client = client;
         this.cmaClient = cmaClient;
+        this.newsMapper = newsMapper;
+        this.stateStore = stateStore;
+        this.observationRegistry = observationRegistry;
     }
 
-    private NewsDto mapEntryToDto(CDAEntry entry) {
-        String title = entry.getField("title");
-        Boolean active = entry.getField("is_active");
-        CDAAsset imageAsset = entry.getField("image");
-        String expirationDateString = entry.getField(EXPIRATION_DATE_FIELD);
-        Boolean isMobyWeb = entry.getField("isMobyWeb");
-        Boolean isMobyApp = entry.getField("isMobyApp");
-        String description = entry.getField("description");
-        String url = entry.getField("url");
+    public List<NewsDto> buildFinalNews(Audience audience) {
+        return buildFinalNews(audience, null);
+    }
 
-        Boolean priority = entry.getField("priority");
-        String createdDateString = entry.getAttribute("createdAt");
+    /**
+     * Arma el feed a partir del snapshot compartido. Si hay rotationKey (usuario o sesión), las novedades
+     * fijas se permutan de forma determinística con esa clave: cada usuario ve siempre el mismo orden
+     * y, entre usuarios, todas las fijas tienen la misma chance de aparecer primero.
+     */
+    public List<NewsDto> buildFinalNews(Audience audience, String rotationKey) {
+        return assemble(feedSnapshot(audience), rotationKey);
+    }
 
-        ZoneId zoneAR = ZoneId.of("America/Argentina/Buenos_Aires"); //Para cambiar al huso argentino
+    // Feed armado con el último snapshot aunque esté desactualizado, sin ir a Contentful (para load shedding)
+    public Optional<List<NewsDto>> staleFinalNews(Audience audience, String rotationKey) {
+        FeedSnapshot snapshot = snapshots.get(audience);
+        return (snapshot == null) ? Optional.empty() : Optional.of(assemble(snapshot, rotationKey));
+    }
 
-        // Parsear el string original
-        OffsetDateTime createdOffset = OffsetDateTime.parse(createdDateString, FLEX_OFFSET);
+    // Paso barato por request: se aplica la rotación sobre un snapshot ya armado
+    List<NewsDto> assemble(FeedSnapshot snapshot, String rotationKey) {
+        List<NewsDto> news = new ArrayList<>(snapshot.news());
 
-        // Convertir a horario argentino
-        ZonedDateTime createdInAR = createdOffset.atZoneSameInstant(zoneAR);
+        // 3) Completar con extras del mismo canal, sin repetir
+        if (snapshot.usesExtras()) {
+            List<NewsDto> pool = new ArrayList<>(snapshot.extras());
+            if (rotationKey == null || rotationKey.isBlank()) {
+                Collections.shuffle(pool);
+            } else {
+                rotate(pool, rotationKey);
+            }
+            int toAdd = Math.min(pool.size(), FEED_SIZE - news.size());
+            news.addAll(pool.subList(0, toAdd));
+        }
+        return news;
+    }
 
-        // Mostrar sin el [America/Argentina/Buenos_Aires]
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ssXXX");
-        String createdParse = createdInAR.format(formatter);
-        ZonedDateTime createdAt = ZonedDateTime.parse(createdParse, formatter);
+    // Parte costosa del feed (traer, filtrar y rankear), compartida por todos los usuarios de la audiencia.
+    // Cada reconstrucción (por invalidación o por TTL) devuelve una instancia nueva y se hace una sola vez
+    // aunque venza con muchos requests en vuelo
+    FeedSnapshot feedSnapshot(Audience audience) {
+        while (true) {
+            long version = feedVersion.get();
+            FeedSnapshot cached = snapshots.get(audience);
+            if (cached != null && cached.version() == version
+                    && cached.builtAt().plus(snapshotTtl).isAfter(Instant.now())) {
+                return cached;
+            }
 
-        ZonedDateTime expirationDate = null;
+            CompletableFuture<FeedSnapshot> own = new CompletableFuture<>();
+            CompletableFuture<FeedSnapshot> running = rebuilds.putIfAbsent(audience, own);
+            if (running == null) {
+                try {
+                    FeedSnapshot snapshot = Observation.createNotStarted("news.feed.build", observationRegistry)
+                            .contextualName("buildFinalNews")
+                            .lowCardinalityKeyValue("audience", audience.name())
+                            .lowCardinalityKeyValue("source", stateStore.isReady() ? "state" : "cda")
+                            .observe(() -> rebuildSnapshot(audience, version));
+                    own.complete(snapshot);
+                    return snapshot;
+                } catch (RuntimeException e) {
+                    own.completeExceptionally(e);
+                    throw e;
+                } finally {
+                    rebuilds.remove(audience, own);
+                }
+            }
 
-        if (expirationDateString != null) {
-            expirationDate = OffsetDateTime.parse(expirationDateString, FLEX_OFFSET).toZonedDateTime();
+            FeedSnapshot built = awaitRebuild(running);
+            // Si se invalidó mientras se armaba, el snapshot ya nace viejo: se arma otro
+            if (built.version() >= version) return built;
+        }
+    }
 
+    private static FeedSnapshot awaitRebuild(CompletableFuture<FeedSnapshot> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
         }
-        String imageUrl = (imageAsset != null) ? imageAsset.url() : null;
-        String entryId = entry.id();
-
-        return new NewsDto(
-                entryId,
-                title,
-                active != null && active,
-                imageUrl,
-                description,
-                isMobyWeb,
-                isMobyApp,
-                url,
-                expirationDate,
-                createdAt,
-                priority != null && priority
-        );
     }
 
-    @Cacheable(value = {"newsFinal","news"}, key = "#audience") // cache separada por canal
-    public List<NewsDto> buildFinalNews(Audience audience) {
+    private FeedSnapshot rebuildSnapshot(Audience audience, long version) {
         // 1) Traer y ordenar NEWS por prioridad
         List<NewsDto> news = new ArrayList<>(fetchNewsActiveNotExpired(audience));
         news.sort(PRIORITY_ORDER);
 
         // 2) Recortar a 8 con tu regla de “drop”
-        while (news.size() > 8) {
+        while (news.size() > FEED_SIZE) {
             NewsDto toRemove = news.stream().min(DROP_RULE).orElse(null);
             if (toRemove == null) break;
             news.remove(toRemove);
         }
 
-        // 3) Completar con extras del mismo canal, sin repetir
-        if (news.size() < 8) {
+        List<NewsDto> pool = List.of();
+        if (news.size() < FEED_SIZE) {
             Set<String> used = news.stream().map(NewsDto::getId).collect(Collectors.toSet());
-            List<NewsDto> extras = fetchAllExtras(audience);
-
-            List<NewsDto> pool = extras.stream()
+            pool = fetchAllExtras(audience).stream()
                     .filter(e -> !used.contains(e.getId()))
-                    .collect(Collectors.toList());
+                    .toList();
+        }
 
-            Collections.shuffle(pool);
-            int toAdd = Math.min(pool.size(), 8 - news.size());
-            news.addAll(pool.subList(0, toAdd));
+        FeedSnapshot snapshot = new FeedSnapshot(version, Instant.now(), List.copyOf(news), pool);
+        snapshots.put(audience, snapshot);
+        return snapshot;
+    }
+
+    // Fisher-Yates con semilla derivada de la clave sobre el pool completo de fijas: estable entre réplicas
+    private static void rotate(List<NewsDto> pool, String rotationKey) {
+        SplittableRandom random = new SplittableRandom(fnv1a64(rotationKey));
+        for (int i = pool.size() - 1; i > 0; i--) {
+            Collections.swap(pool, i, random.nextInt(i + 1));
         }
+    }
 
-        if (news.size() > 8) news = news.subList(0, 8);
-        return news;
+    private static long fnv1a64(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= (b & 0xff);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
     }
 
     private List<NewsDto> fetchNewsActiveNotExpired(Audience audience) {
-        CDAArray arr = client.fetch(CDAEntry.class)
-                .withContentType(CONTENT_TYPE_NEWS)
-                .all();
-
-        return arr.entries().values().stream()
-                .map(CDAEntry.class::cast)
-                .map(this::mapEntryToDto)
+        // Con el estado replicado desde Kafka no hace falta ir a la CDA
+        List<NewsDto> all = stateStore.isReady()
+                ? stateStore.byContentType(CONTENT_TYPE_NEWS)
+                : cda("fetchNews", () -> client.fetch(CDAEntry.class)
+                        .withContentType(CONTENT_TYPE_NEWS)
+                        .all())
+                        .entries().values().stream()
+                        .map(CDAEntry.class::cast)
+                        .map(newsMapper::fromCdaEntry)
+                        .toList();
+
+        return all.stream()
                 .filter(NewsDto::getActive)                                 // solo activas
                 .filter(n -> n.getExpirationDate() == null
                         || n.getExpirationDate().isAfter(ZonedDateTime.now(ZoneOffset.UTC)))
@@ -173,37 +238,135 @@ public class ContentfulService {
     }
 
     private List<NewsDto> fetchAllExtras(Audience audience) {
-        CDAArray arr = client.fetch(CDAEntry.class)
-                .withContentType(CONTENT_TYPE_FIJAS)
-                .limit(8)
-                .all();
+        List<NewsDto> all;
+        if (stateStore.isReady()) {
+            all = stateStore.byContentType(CONTENT_TYPE_FIJAS);
+        } else {
+            CDAArray arr = cda("fetchExtras", () -> client.fetch(CDAEntry.class)
+                    .withContentType(CONTENT_TYPE_FIJAS)
+                    .limit(CDA_MAX_PAGE_SIZE)
+                    .all());
+            all = arr.entries().values().stream().map(newsMapper::fromCdaEntry).toList();
+        }
 
-        List<NewsDto> list = new ArrayList<>(arr.entries().values().stream()
-                .map(this::mapEntryToDto)
+        List<NewsDto> list = new ArrayList<>(all.stream()
                 .filter(n -> audience == Audience.MOBY_APP
                         ? Boolean.TRUE.equals(n.getIsMobyApp())
                         : Boolean.TRUE.equals(n.getIsMobyWeb()))            // MISMO FILTRO EN EXTRAS
-                .toList());
+                .sorted(Comparator.comparing(NewsDto::getId))           // orden canónico para la rotación
+                .toList());                                             // pool completo: se recorta después de rotar
 
-        Collections.shuffle(list);
         return list;
     }
 
+    // Con el estado de Kafka listo se busca en el índice en memoria. Si no (p. ej. falló el bootstrap),
+    // se usa la búsqueda full-text de la CDA y el resultado se rankea y filtra con las mismas reglas
+    public List<NewsDto> searchNews(String query, Audience audience, int limit) {
+        if (stateStore.isReady()) return stateStore.search(query, audience, limit);
+
+        NewsSearchIndex fromCda = new NewsSearchIndex();
+        for (String contentType : List.of(CONTENT_TYPE_NEWS, CONTENT_TYPE_FIJAS)) {
+            CDAArray arr = cda("searchNews", () -> client.fetch(CDAEntry.class)
+                    .withContentType(contentType)
+                    .where("query", query)
+                    .limit(SEARCH_FALLBACK_LIMIT)
+                    .all());
+            arr.items().stream()
+                    .map(CDAEntry.class::cast)
+                    .map(newsMapper::fromCdaEntry)
+                    .forEach(dto -> fromCda.upsert(contentType, dto));
+        }
+        return fromCda.search(query, audience, limit);
+    }
+
+    // Entradas creadas en createdFrom o después, en orden estable (creación, id): paginado por keyset,
+    // no lo corren las altas ni bajas
+    public List<NewsDto> fetchCatalogPageFrom(String contentType, ZonedDateTime createdFrom, int limit, ZonedDateTime expiringBefore) {
+        return fetchCatalogEntries(contentType, createdFrom, 0, limit, expiringBefore).stream()
+                .map(newsMapper::fromCdaEntry)
+                .toList();
+    }
+
+    // Página del catálogo por skip con la revisión publicada de cada entrada (siembra y reconciliación del estado)
+    public List<PublishedNews> fetchPublishedPage(String contentType, int skip, int limit) {
+        return fetchCatalogEntries(contentType, null, skip, limit, null).stream()
+                .map(entry -> new PublishedNews(newsMapper.fromCdaEntry(entry), revisionOf(entry), contentTypeOf(entry)))
+                .toList();
+    }
+
+    private List<CDAEntry> fetchCatalogEntries(String contentType, ZonedDateTime createdFrom, int skip, int limit,
+                                               ZonedDateTime expiringBefore) {
+        FetchQuery<CDAEntry> query = client.fetch(CDAEntry.class)
+                .withContentType(contentType)
+                .orderBy("sys.createdAt,sys.id")
+                .skip(skip)
+                .limit(limit);
+        if (createdFrom != null) {
+            query = query.where("sys.createdAt[gte]", createdFrom.format(NewsMapper.FLEX_OFFSET));
+        }
+        if (expiringBefore != null && CONTENT_TYPE_NEWS.equals(contentType)) {
+            query = query.where("fields." + EXPIRATION_DATE_FIELD + "[lte]", expiringBefore.format(NewsMapper.FLEX_OFFSET));
+        }
+        FetchQuery<CDAEntry> pageQuery = query;
+        CDAArray arr = cda("fetchCatalogPage", pageQuery::all);
+
+        // items() respeta el orden de la consulta; entries() también incluye entradas linkeadas
+        return arr.items().stream()
+                .map(CDAEntry.class::cast)
+                .toList();
+    }
+
     // Busca la novedad por su ID
     public Optional<NewsDto> getNewsById(String entryId) {
+        return getPublishedNews(entryId).map(PublishedNews::item);
+    }
+
+    // Igual que getNewsById pero con la revisión publicada (sys.revision), para saber si la CDN ya está al día
+    public Optional<PublishedNews> getPublishedNews(String entryId) {
         try {
-            CDAEntry entry = client.fetch(CDAEntry.class).one(entryId);
+            CDAEntry entry = cda("getNewsById", () -> client.fetch(CDAEntry.class).one(entryId));
             if (entry == null) return Optional.empty();
-            return Optional.of(mapEntryToDto(entry));
+            return Optional.of(new PublishedNews(newsMapper.fromCdaEntry(entry), revisionOf(entry), contentTypeOf(entry)));
         } catch (Exception e) {
             log.warn("No se pudo obtener la entrada CDA id={}: {}", entryId, e.getMessage());
             return Optional.empty();
         }
     }
 
-    // Limpia la caché para mantener las novedades actualizadas
-    @CacheEvict(value = {"news","newsFinal"}, allEntries = true)
+    private static Integer revisionOf(CDAEntry entry) {
+        Object revision = entry.getAttribute("revision");
+        return revision instanceof Number n ? n.intValue() : null;
+    }
+
+    // Id del content type: el SDK lo resuelve desde su caché; si no, se lee el link de sys.contentType
+    private static String contentTypeOf(CDAEntry entry) {
+        if (entry.contentType() != null) return entry.contentType().id();
+        if (entry.getAttribute("contentType") instanceof Map<?, ?> link
+                && link.get("sys") instanceof Map<?, ?> sys && sys.get("id") instanceof String id) {
+            return id;
+        }
+        return null;
+    }
+
+    // Span por cada llamada a Contentful: permite separar la latencia de la CDA/CMA del resto del request
+    private <T> T cda(String operation, Supplier<T> call) {
+        return contentfulCall("contentful.cda", operation, call);
+    }
+
+    private <T> T cma(String operation, Supplier<T> call) {
+        return contentfulCall("contentful.cma", operation, call);
+    }
+
+    private <T> T contentfulCall(String name, String operation, Supplier<T> call) {
+        return Observation.createNotStarted(name, observationRegistry)
+                .contextualName(name + " " + operation)
+                .lowCardinalityKeyValue("operation", operation)
+                .observe(call);
+    }
+
+    // Limpia la caché para mantener las novedades actualizadas: el próximo feed rearma el snapshot
     public void evictNewsCache() {
+        feedVersion.incrementAndGet();
         log.info("Cache de novedades invalidada.");
     }
 
@@ -211,15 +374,15 @@ public class ContentfulService {
     @Scheduled(cron = "0 */1 * * * ?")
     public void deleteExpiredNews() {
         final ZonedDateTime nowUtc = ZonedDateTime.now(ZoneId.of("UTC"));
-        final String isoDate = nowUtc.format(FLEX_OFFSET);
+        final String isoDate = nowUtc.format(NewsMapper.FLEX_OFFSET);
         log.info("STARTING CLEANUP: Buscando noticias caducadas a " + isoDate);
         try {
             Map<String, String> queryFilters = new HashMap<>();
             queryFilters.put("fields." + EXPIRATION_DATE_FIELD + "[lte]", isoDate);
             queryFilters.put("content_type", CONTENT_TYPE_NEWS);
 
-            List<CMAEntry> expiredEntries = cmaClient.entries()
-                    .fetchAll(spaceId, ENVIRONMENT_ID, queryFilters)
+            List<CMAEntry> expiredEntries = cma("fetchExpired", () -> cmaClient.entries()
+                    .fetchAll(spaceId, ENVIRONMENT_ID, queryFilters))
                     .getItems();
 
             if (expiredEntries.isEmpty()) {
@@ -244,10 +407,10 @@ public class ContentfulService {
 
                     if (Boolean.TRUE.equals(entry.isPublished())) {
                         log.info("  -> Despublicando entrada...");
-                        cmaClient.entries().unPublish(entry);
+                        cma("unPublish", () -> cmaClient.entries().unPublish(entry));
                     }
                     log.info("  -> Eliminando entrada...");
-                    cmaClient.entries().delete(entry);
+                    cma("delete", () -> cmaClient.entries().delete(entry));
 
                     log.info("SUCCESS: Noticia eliminada: {}", title);
 
@@ -255,4 +418,19 @@ public class ContentfulService {
                     log.warn("ERROR PROCESSING ENTRY: {}: {}", entry.getId(), e.getMessage());
                 }
     }
-}
\ No newline at end of file
+
+    record FeedSnapshot(long version, Instant builtAt, List<NewsDto> news, List<NewsDto> extras) {
+
+        // true si el feed se completa con fijas: sin rotationKey su orden cambia en cada armado
+        boolean usesExtras() {
+            return news.size() < FEED_SIZE && !extras.isEmpty();
+        }
+    }
+
+    public record PublishedNews(NewsDto item, Integer revision, String contentType) {
+
+        public PublishedNews(NewsDto item, Integer revision) {
+            this(item, revision, null);
+        }
+    }
+}
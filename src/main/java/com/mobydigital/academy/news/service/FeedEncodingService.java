@@ -0,0 +1,97 @@
+package com.mobydigital.academy.news.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.mobydigital.academy.news.dto.Audience;
+import com.mobydigital.academy.news.dto.ImageFormat;
+import com.mobydigital.academy.news.dto.ImageSize;
+import com.mobydigital.academy.news.dto.NewsDto;
+import com.mobydigital.academy.news.dto.NewsWireDto;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Codifica el feed en formatos binarios (CBOR/Smile) una sola vez por snapshot del feed
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FeedEncodingService {
+
+    public static final String APPLICATION_CBOR_VALUE = "application/cbor";
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+    public static final MediaType APPLICATION_CBOR = MediaType.parseMediaType(APPLICATION_CBOR_VALUE);
+    public static final MediaType APPLICATION_SMILE = MediaType.parseMediaType(APPLICATION_SMILE_VALUE);
+
+    private final ContentfulService contentfulService;
+    private final ImageUrlService imageUrlService;
+
+    private final ObjectMapper cborMapper = new CBORMapper();
+    private final ObjectMapper smileMapper = new SmileMapper();
+
+    // Clave: audiencia|formato|bucket de imagen; hay pocas combinaciones posibles
+    private final Map<String, EncodedFeed> encoded = new ConcurrentHashMap<>();
+
+    // Solo se elige un formato binario si el cliente lo prefiere (por q-value) antes que JSON
+    public Optional<MediaType> negotiate(String accept) {
+        if (accept == null || accept.isBlank()) return Optional.empty();
+        try {
+            List<MediaType> types = new ArrayList<>(MediaType.parseMediaTypes(accept));
+            // Orden estable: ante igual calidad se respeta el orden del header
+            types.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+            for (MediaType type : types) {
+                if (type.getQualityValue() <= 0 || type.isWildcardType() || type.isWildcardSubtype()) continue;
+                if (type.isCompatibleWith(MediaType.APPLICATION_JSON)) return Optional.empty();
+                if (type.isCompatibleWith(APPLICATION_CBOR)) return Optional.of(APPLICATION_CBOR);
+                if (type.isCompatibleWith(APPLICATION_SMILE)) return Optional.of(APPLICATION_SMILE);
+            }
+        } catch (InvalidMediaTypeException e) {
+            log.debug("Header Accept inválido: {}", accept);
+        }
+        return Optional.empty();
+    }
+
+    // Devuelve el feed codificado (null si está vacío); solo se recodifica cuando se reconstruyó el snapshot,
+    // ya sea por una invalidación o porque venció su TTL. Si el feed se completa con fijas, su orden depende
+    // del usuario (rotationKey) o se baraja en cada armado como en JSON, así que se codifica en cada request
+    // sin cachear: cachearlo congelaría una sola permutación hasta el próximo snapshot.
+    public byte[] encode(Audience audience, MediaType type, ImageSize size, ImageFormat format, String rotationKey) {
+        String key = audience + "|" + type + "|" + size + "|" + format;
+        ContentfulService.FeedSnapshot snapshot = contentfulService.feedSnapshot(audience);
+        boolean shared = !snapshot.usesExtras();
+        EncodedFeed cached = shared ? encoded.get(key) : null;
+        if (cached != null && cached.snapshot() == snapshot) {
+            return cached.bytes();
+        }
+
+        List<NewsDto> news = imageUrlService.adapt(contentfulService.assemble(snapshot, rotationKey), size, format);
+        List<NewsWireDto> wire = (news == null) ? List.of() : news.stream().map(NewsWireDto::from).toList();
+        try {
+            byte[] bytes = wire.isEmpty() ? null : mapperFor(type).writeValueAsBytes(wire);
+            if (shared) encoded.put(key, new EncodedFeed(snapshot, bytes));
+            log.debug("Feed {} codificado en {} ({} bytes, versión {})", audience, type,
+                    bytes == null ? 0 : bytes.length, snapshot.version());
+            return bytes;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo codificar el feed en " + type, e);
+        }
+    }
+
+    ObjectMapper mapperFor(MediaType type) {
+        return APPLICATION_SMILE.equals(type) ? smileMapper : cborMapper;
+    }
+
+    // Se compara por identidad: cada snapshot reconstruido es una instancia nueva
+    private record EncodedFeed(ContentfulService.FeedSnapshot snapshot, byte[] bytes) {
+    }
+}
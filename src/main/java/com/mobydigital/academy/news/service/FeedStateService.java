@@ -0,0 +1,330 @@
+package com.mobydigital.academy.news.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mobydigital.academy.news.dto.AssetMetadata;
+import com.mobydigital.academy.news.dto.NewsDto;
+import com.mobydigital.academy.news.dto.NewsStateRecord;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.PartitionOffset;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Replica el estado materializado de las novedades a través de un topic compactado de Kafka.
+ * Al arrancar, la réplica lee el topic completo (una lectura secuencial) en lugar de ir a Contentful.
+ * El topic solo se considera completo si tiene la marca de siembra terminada; si está vacío o la siembra
+ * anterior se cortó, se siembra desde la CDA. Una reconciliación periódica por revisión corrige lo que
+ * se haya perdido por webhooks que nunca llegaron.
+ */
+@Service
+@Slf4j
+public class FeedStateService {
+
+    private static final int SEED_PAGE_SIZE = 100;
+    private static final List<String> CONTENT_TYPES =
+            List.of(ContentfulService.CONTENT_TYPE_NEWS, ContentfulService.CONTENT_TYPE_FIJAS);
+    // Clave reservada que se escribe al terminar una siembra; la compactación conserva la última
+    static final String SEED_COMPLETE_KEY = "__seed-complete__";
+
+    private final KafkaTemplate<String, String> stateKafkaTemplate;
+    private final ConsumerFactory<String, String> stateConsumerFactory;
+    private final ObjectMapper objectMapper;
+    private final NewsStateStore stateStore;
+    private final ContentfulService contentfulService;
+
+    @Value("${news.state.topic}")
+    private String stateTopic;
+
+    @Value("${news.state.partitions:3}")
+    private int statePartitions;
+
+    // Espera máxima por la confirmación del broker antes de fallar el webhook
+    @Value("${news.state.send-timeout:10s}")
+    private Duration sendTimeout;
+
+    // Próximo offset a leer por partición, según lo consumido por el listener
+    private final Map<TopicPartition, Long> consumed = new ConcurrentHashMap<>();
+    // Offsets finales del topic al arrancar: al alcanzarlos el estado está al día
+    private volatile Map<TopicPartition, Long> bootstrapTargets;
+    // Se leyó la marca de siembra completa: sin ella el topic puede tener solo parte del catálogo
+    private volatile boolean seedCompleted;
+    private final AtomicBoolean seeding = new AtomicBoolean();
+    // Entradas que faltaban en la CDA en la última reconciliación; se borran si siguen faltando en la próxima
+    private Set<String> missingInCda = Set.of();
+
+    public FeedStateService(KafkaTemplate<String, String> stateKafkaTemplate,
+                            ConsumerFactory<String, String> stateConsumerFactory,
+                            ObjectMapper objectMapper,
+                            NewsStateStore stateStore,
+                            ContentfulService contentfulService) {
+        this.stateKafkaTemplate = stateKafkaTemplate;
+        this.stateConsumerFactory = stateConsumerFactory;
+        this.objectMapper = objectMapper;
+        this.stateStore = stateStore;
+        this.contentfulService = contentfulService;
+    }
+
+    // Publica el estado actual de la entrada y, una vez confirmado por el broker, lo aplica localmente
+    // sin esperar el eco del topic. Si el envío falla se lanza excepción y el webhook no se confirma
+    public void publishUpsert(String contentType, NewsDto dto, Integer revision) throws JsonProcessingException {
+        NewsStateRecord record = new NewsStateRecord(contentType, dto, dto.getImage(), revision);
+        awaitSend(dto.getId(), stateKafkaTemplate.send(stateTopic, dto.getId(), objectMapper.writeValueAsString(record)));
+        stateStore.upsert(contentType, dto, revision);
+        // Se invalida después de actualizar el estado para que ningún snapshot quede con la versión vieja
+        contentfulService.evictNewsCache();
+    }
+
+    /**
+     * Con el estado replicado el feed no se vuelve a mapear desde la CDA, así que un asset republicado
+     * (o despublicado, con asset null) se propaga republicando cada entrada que lo usa como imagen.
+     */
+    public List<NewsDto> publishAssetChange(String assetId, AssetMetadata asset) throws JsonProcessingException {
+        List<NewsDto> updated = new ArrayList<>();
+        for (NewsStateStore.StoredEntry entry : stateStore.withAsset(assetId)) {
+            NewsDto item = entry.item().toBuilder()
+                    .image(asset)
+                    .imageUrl(asset != null ? asset.getUrl() : null)
+                    .build();
+            publishUpsert(entry.contentType(), item, entry.revision());
+            updated.add(item);
+        }
+        return updated;
+    }
+
+    // Tombstone: la compactación termina eliminando la clave del topic. Devuelve la última versión conocida.
+    // revision es la del unpublish (null si no se conoce): una copia de la CDA hasta esa revisión ya no se republica
+    public NewsDto publishRemoval(String entryId, Integer revision) {
+        awaitSend(entryId, stateKafkaTemplate.send(stateTopic, entryId, null));
+        NewsDto removed = stateStore.remove(entryId, revision);
+        contentfulService.evictNewsCache();
+        return removed;
+    }
+
+    // Asignación explícita de todas las particiones desde el offset 0, sin consumer group:
+    // cada réplica relee el topic completo y no queda ningún grupo con offsets commiteados en el broker
+    @KafkaListener(
+            id = "news-state",
+            idIsGroup = false,
+            topicPartitions = @org.springframework.kafka.annotation.TopicPartition(
+                    topic = "${news.state.topic}",
+                    partitions = "0-#{${news.state.partitions} - 1}",
+                    partitionOffsets = @PartitionOffset(partition = "*", initialOffset = "0")),
+            containerFactory = "stateListenerContainerFactory"
+    )
+    public void onStateRecord(ConsumerRecord<String, String> record) {
+        try {
+            if (SEED_COMPLETE_KEY.equals(record.key())) {
+                seedCompleted = true;
+            } else if (record.value() == null) {
+                stateStore.remove(record.key());
+            } else {
+                NewsStateRecord state = objectMapper.readValue(record.value(), NewsStateRecord.class);
+                NewsDto item = state.getItem();
+                item.setImage(state.getImage());
+                stateStore.upsert(state.getContentType(), item, state.getRevision());
+            }
+        } catch (JsonProcessingException e) {
+            log.warn("Registro de estado inválido key={}: {}", record.key(), e.getMessage());
+        }
+
+        consumed.put(new TopicPartition(record.topic(), record.partition()), record.offset() + 1);
+        if (stateStore.isReady()) {
+            // Cambio hecho por otra réplica: el feed armado ya no es válido
+            contentfulService.evictNewsCache();
+        } else {
+            checkCaughtUp();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void bootstrap() {
+        int topicPartitions;
+        Map<TopicPartition, Long> endOffsets;
+        try (Consumer<String, String> consumer = stateConsumerFactory.createConsumer()) {
+            List<TopicPartition> partitions = consumer.partitionsFor(stateTopic, Duration.ofSeconds(10)).stream()
+                    .map(p -> new TopicPartition(p.topic(), p.partition()))
+                    .toList();
+            topicPartitions = partitions.size();
+            endOffsets = consumer.endOffsets(partitions, Duration.ofSeconds(10));
+        } catch (Exception e) {
+            // Sin Kafka el servicio sigue funcionando contra la CDA
+            log.warn("No se pudo inicializar el estado desde Kafka, se usa la CDA: {}", e.getMessage());
+            return;
+        }
+
+        // El listener tiene asignadas solo las particiones configuradas: con más particiones en el topic
+        // el estado quedaría incompleto sin que nada lo indique
+        if (topicPartitions > statePartitions) {
+            throw new IllegalStateException("El topic " + stateTopic + " tiene " + topicPartitions
+                    + " particiones pero news.state.partitions=" + statePartitions);
+        }
+        if (topicPartitions < statePartitions) {
+            log.warn("El topic {} tiene {} particiones pero news.state.partitions={}.",
+                    stateTopic, topicPartitions, statePartitions);
+        }
+
+        if (endOffsets.values().stream().allMatch(offset -> offset == 0)) {
+            log.info("Topic {} vacío: sembrando estado desde Contentful.", stateTopic);
+            seed();
+            return;
+        }
+        bootstrapTargets = endOffsets;
+        log.info("Recuperando estado de novedades desde {} (offsets finales {}).", stateTopic, endOffsets);
+        checkCaughtUp();
+    }
+
+    private void checkCaughtUp() {
+        Map<TopicPartition, Long> targets = bootstrapTargets;
+        if (targets == null) return;
+        boolean caughtUp = targets.entrySet().stream()
+                .allMatch(t -> t.getValue() == 0 || consumed.getOrDefault(t.getKey(), 0L) >= t.getValue());
+        if (!caughtUp) return;
+
+        bootstrapTargets = null;
+        if (seedCompleted) {
+            stateStore.markReady();
+            contentfulService.evictNewsCache();
+        } else {
+            // Una siembra anterior se cortó antes de terminar: lo leído es solo parte del catálogo
+            log.warn("El topic {} no tiene la marca de siembra completa: se vuelve a sembrar desde Contentful.", stateTopic);
+            seed();
+        }
+    }
+
+    private void seed() {
+        if (!seeding.compareAndSet(false, true)) return;
+        try {
+            seedFromContentful();
+        } catch (Exception e) {
+            log.warn("No se pudo sembrar el estado desde Contentful, se usa la CDA: {}", e.getMessage());
+        } finally {
+            seeding.set(false);
+        }
+    }
+
+    // Recorre el catálogo completo y lo publica. Los envíos salen en paralelo y recién al final se espera
+    // la confirmación de todos; la marca de siembra completa se escribe solo después
+    private void seedFromContentful() throws JsonProcessingException {
+        List<PendingSeed> pending = new ArrayList<>();
+        for (String contentType : CONTENT_TYPES) {
+            int skip = 0;
+            List<ContentfulService.PublishedNews> page;
+            do {
+                page = contentfulService.fetchPublishedPage(contentType, skip, SEED_PAGE_SIZE);
+                for (ContentfulService.PublishedNews published : page) {
+                    NewsDto dto = published.item();
+                    String value = objectMapper.writeValueAsString(
+                            new NewsStateRecord(contentType, dto, dto.getImage(), published.revision()));
+                    pending.add(new PendingSeed(contentType, published,
+                            stateKafkaTemplate.send(stateTopic, dto.getId(), value)));
+                }
+                skip += page.size();
+            } while (page.size() == SEED_PAGE_SIZE);
+        }
+        for (PendingSeed seed : pending) {
+            awaitSend(seed.item().item().getId(), seed.sent());
+            stateStore.upsert(seed.contentType(), seed.item().item(), seed.item().revision());
+        }
+        awaitSend(SEED_COMPLETE_KEY, stateKafkaTemplate.send(stateTopic, SEED_COMPLETE_KEY, Instant.now().toString()));
+        seedCompleted = true;
+        log.info("Estado sembrado desde Contentful: {} entradas.", pending.size());
+        stateStore.markReady();
+        contentfulService.evictNewsCache();
+    }
+
+    /**
+     * Compara el estado con el catálogo de la CDA por revisión. Se republica lo que la CDA tiene más nuevo
+     * o el estado no tiene, y se borra lo que falta en la CDA en dos pasadas seguidas: una sola falta puede
+     * ser una publicación que la CDN todavía no refleja.
+     */
+    @Scheduled(fixedDelayString = "${news.state.reconcile-interval:PT1H}",
+            initialDelayString = "${news.state.reconcile-interval:PT1H}")
+    public void reconcile() {
+        if (!stateStore.isReady()) return;
+        try {
+            Set<String> missing = new HashSet<>();
+            int republished = 0;
+            for (String contentType : CONTENT_TYPES) {
+                Set<String> inCda = new HashSet<>();
+                int skip = 0;
+                List<ContentfulService.PublishedNews> page;
+                do {
+                    page = contentfulService.fetchPublishedPage(contentType, skip, SEED_PAGE_SIZE);
+                    for (ContentfulService.PublishedNews published : page) {
+                        inCda.add(published.item().getId());
+                        if (isNewer(published, stateStore.get(published.item().getId()).orElse(null))) {
+                            publishUpsert(contentType, published.item(), published.revision());
+                            republished++;
+                        }
+                    }
+                    skip += page.size();
+                } while (page.size() == SEED_PAGE_SIZE);
+
+                stateStore.entriesOf(contentType).stream()
+                        .map(entry -> entry.item().getId())
+                        .filter(id -> !inCda.contains(id))
+                        .forEach(missing::add);
+            }
+
+            int removed = 0;
+            for (String entryId : missing) {
+                if (missingInCda.contains(entryId)) {
+                    publishRemoval(entryId, null);
+                    removed++;
+                }
+            }
+            missingInCda = missing;
+            log.info("Reconciliación con la CDA: {} republicadas, {} borradas, {} pendientes de confirmar.",
+                    republished, removed, missing.size() - removed);
+        } catch (Exception e) {
+            log.warn("No se pudo reconciliar el estado con la CDA: {}", e.getMessage());
+        }
+    }
+
+    // La copia de la CDA manda si el estado no la tiene o si tiene una revisión mayor (o sin revisión conocida)
+    private boolean isNewer(ContentfulService.PublishedNews published, NewsStateStore.StoredEntry stored) {
+        if (stored == null) return true;
+        if (published.revision() == null) return false;
+        return stored.revision() == null || stored.revision() < published.revision();
+    }
+
+    private void awaitSend(String entryId, CompletableFuture<SendResult<String, String>> sent) {
+        try {
+            sent.get(sendTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrumpido mientras se publicaba el estado de " + entryId, e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IllegalStateException("No se pudo publicar el estado de " + entryId + " en " + stateTopic, e);
+        }
+    }
+
+    private record PendingSeed(String contentType, ContentfulService.PublishedNews item,
+                               CompletableFuture<SendResult<String, String>> sent) {
+    }
+}
@@ -0,0 +1,60 @@
+package com.mobydigital.academy.news.service;
+
+import com.mobydigital.academy.news.dto.AssetMetadata;
+import com.mobydigital.academy.news.dto.ImageFormat;
+import com.mobydigital.academy.news.dto.ImageSize;
+import com.mobydigital.academy.news.dto.NewsDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+// Arma las URLs de la Images API de Contentful (w, q, fm) según el tamaño y formato pedidos por el cliente
+@Service
+public class ImageUrlService {
+
+    @Value("${contentful.images.quality:75}")
+    private int quality;
+
+    // Devuelve copias de las noticias con la imagen adaptada; las listas cacheadas no se modifican
+    public List<NewsDto> adapt(List<NewsDto> news, ImageSize size, ImageFormat format) {
+        if (news == null || (size == null && format == null)) return news;
+        return news.stream()
+                .map(n -> {
+                    String url = urlFor(n.getImage(), size, format);
+                    return url == null ? n : n.toBuilder().imageUrl(url).build();
+                })
+                .toList();
+    }
+
+    // URL de la Images API para el bucket y formato pedidos; null si el asset no admite transformación
+    public String urlFor(AssetMetadata asset, ImageSize size, ImageFormat format) {
+        if (!isTransformable(asset) || (size == null && format == null)) return null;
+        String base = asset.getUrl().startsWith("//") ? "https:" + asset.getUrl() : asset.getUrl();
+        StringBuilder url = new StringBuilder(base).append("?q=").append(quality);
+        // No se agranda la imagen por encima de su ancho original
+        if (size != null && (asset.getWidth() == null || size.getWidth() < asset.getWidth())) {
+            url.append("&w=").append(size.getWidth());
+        }
+        if (format != null) {
+            url.append("&fm=").append(format.getParam());
+        }
+        return url.toString();
+    }
+
+    public static ImageSize sizeFor(Integer width, Double dpr) {
+        if (width == null || width <= 0) return null;
+        double ratio = (dpr == null || dpr <= 0) ? 1.0 : Math.min(dpr, 4.0);
+        return ImageSize.forWidth((int) Math.ceil(width * ratio));
+    }
+
+    // SVG y GIF animados no se benefician de la transformación
+    private boolean isTransformable(AssetMetadata asset) {
+        return asset != null
+                && asset.getUrl() != null
+                && asset.getContentType() != null
+                && asset.getContentType().startsWith("image/")
+                && !asset.getContentType().equals("image/svg+xml")
+                && !asset.getContentType().equals("image/gif");
+    }
+}
@@ -0,0 +1,162 @@
+package com.mobydigital.academy.news.service;
+
+import com.contentful.java.cda.CDAAsset;
+import com.contentful.java.cda.CDAEntry;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.mobydigital.academy.news.dto.AssetMetadata;
+import com.mobydigital.academy.news.dto.NewsDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.temporal.ChronoField;
+
+/**
+ * Reglas de mapeo de una entrada de Contentful a {@link NewsDto}, compartidas entre las entradas de la CDA
+ * y los payloads de webhook de la CMA (donde cada campo viene indexado por locale).
+ */
+@Component
+public class NewsMapper {
+
+    static final String EXPIRATION_DATE_FIELD = "expiration_date";
+
+    static final DateTimeFormatter FLEX_OFFSET =
+            new DateTimeFormatterBuilder()
+                    .appendPattern("yyyy-MM-dd'T'HH:mm")
+                    .optionalStart().appendLiteral(':').appendPattern("ss").optionalEnd()
+                    .optionalStart().appendFraction(ChronoField.NANO_OF_SECOND, 0, 9, true).optionalEnd()
+                    .appendOffset("+HH:MM", "Z")
+                    .toFormatter();
+
+    private final AssetCacheService assetCacheService;
+
+    @Value("${contentful.locale:en-US}")
+    private String locale;
+
+    public NewsMapper(AssetCacheService assetCacheService) {
+        this.assetCacheService = assetCacheService;
+    }
+
+    public NewsDto fromCdaEntry(CDAEntry entry) {
+        CDAAsset imageAsset = entry.getField("image");
+        // Los metadatos del asset se resuelven una sola vez por revisión (caché compartida)
+        AssetMetadata asset = assetCacheService.resolve(imageAsset);
+
+        return build(
+                entry.id(),
+                entry.getAttribute("createdAt"),
+                entry.getField("title"),
+                entry.getField("is_active"),
+                entry.getField(EXPIRATION_DATE_FIELD),
+                entry.getField("isMobyWeb"),
+                entry.getField("isMobyApp"),
+                entry.getField("description"),
+                entry.getField("url"),
+                entry.getField("priority"),
+                asset
+        );
+    }
+
+    /**
+     * Mapea el payload de un webhook ContentManagement.Entry.publish. Devuelve null si la plantilla
+     * del webhook no trae los campos, en cuyo caso hay que leer la entrada desde la CDA.
+     */
+    public NewsDto fromManagementPayload(JsonNode payload) {
+        JsonNode sys = payload.path("sys");
+        JsonNode fields = payload.path("fields");
+        if (!sys.hasNonNull("id") || !sys.hasNonNull("createdAt") || !fields.isObject()) return null;
+
+        String imageId = localized(fields, "image").path("sys").path("id").textValue();
+        AssetMetadata asset = (imageId != null) ? assetCacheService.resolveById(imageId) : null;
+
+        return build(
+                sys.get("id").asText(),
+                sys.get("createdAt").asText(),
+                text(fields, "title"),
+                bool(fields, "is_active"),
+                text(fields, EXPIRATION_DATE_FIELD),
+                bool(fields, "isMobyWeb"),
+                bool(fields, "isMobyApp"),
+                text(fields, "description"),
+                text(fields, "url"),
+                bool(fields, "priority"),
+                asset
+        );
+    }
+
+    // Mapea el payload de un webhook ContentManagement.Asset.publish; null si la plantilla no trae el archivo
+    public AssetMetadata assetFromManagementPayload(JsonNode payload) {
+        JsonNode sys = payload.path("sys");
+        JsonNode file = localized(payload.path("fields"), "file");
+        if (!sys.hasNonNull("id") || !file.hasNonNull("url")) return null;
+        JsonNode revision = sys.path("revision");
+        JsonNode width = file.path("details").path("image").path("width");
+        return new AssetMetadata(
+                sys.get("id").asText(),
+                revision.isNumber() ? revision.intValue() : null,
+                file.get("url").asText(),
+                file.path("contentType").textValue(),
+                width.isNumber() ? width.intValue() : null
+        );
+    }
+
+    private NewsDto build(String entryId, String createdDateString, String title, Boolean active,
+                          String expirationDateString, Boolean isMobyWeb, Boolean isMobyApp,
+                          String description, String url, Boolean priority, AssetMetadata asset) {
+
+        ZoneId zoneAR = ZoneId.of("America/Argentina/Buenos_Aires"); //Para cambiar al huso argentino
+
+        // Parsear el string original
+        OffsetDateTime createdOffset = OffsetDateTime.parse(createdDateString, FLEX_OFFSET);
+
+        // Convertir a horario argentino
+        ZonedDateTime createdInAR = createdOffset.atZoneSameInstant(zoneAR);
+
+        // Mostrar sin el [America/Argentina/Buenos_Aires]
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ssXXX");
+        String createdParse = createdInAR.format(formatter);
+        ZonedDateTime createdAt = ZonedDateTime.parse(createdParse, formatter);
+
+        ZonedDateTime expirationDate = null;
+
+        if (expirationDateString != null) {
+            expirationDate = OffsetDateTime.parse(expirationDateString, FLEX_OFFSET).toZonedDateTime();
+
+        }
+        String imageUrl = (asset != null) ? asset.getUrl() : null;
+
+        return new NewsDto(
+                entryId,
+                title,
+                active != null && active,
+                imageUrl,
+                description,
+                isMobyWeb,
+                isMobyApp,
+                url,
+                expirationDate,
+                createdAt,
+                priority != null && priority,
+                asset
+        );
+    }
+
+    // fields.<name>.<locale>
+    private JsonNode localized(JsonNode fields, String name) {
+        return fields.path(name).path(locale);
+    }
+
+    private String text(JsonNode fields, String name) {
+        JsonNode value = localized(fields, name);
+        return value.isValueNode() && !value.isNull() ? value.asText() : null;
+    }
+
+    private Boolean bool(JsonNode fields, String name) {
+        JsonNode value = localized(fields, name);
+        return value.isBoolean() ? value.booleanValue() : null;
+    }
+}
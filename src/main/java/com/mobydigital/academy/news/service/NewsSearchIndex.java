@@ -0,0 +1,197 @@
+package com.mobydigital.academy.news.service;
+
+import com.mobydigital.academy.news.dto.Audience;
+import com.mobydigital.academy.news.dto.NewsDto;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+/**
+ * Índice invertido en memoria sobre título y descripción de las novedades.
+ * Normaliza acentos (búsqueda de "informacion" encuentra "información"), busca por prefijo
+ * y se actualiza de forma incremental desde {@link NewsStateStore}.
+ * Los términos de menos de {@value #MIN_PREFIX_LENGTH} letras se buscan como palabra exacta. Un prefijo que
+ * abarca más de {@value #MAX_PREFIX_EXPANSION} palabras del índice no se usa para elegir candidatos: se verifica
+ * contra los tokens de cada uno, así el resultado se ordena completo antes de recortarse al límite.
+ */
+@Component
+public class NewsSearchIndex {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+    static final int MIN_PREFIX_LENGTH = 3;
+    static final int MAX_PREFIX_EXPANSION = 256;
+
+    // token -> ids; ordenado para poder resolver prefijos con un subMap
+    private final NavigableMap<String, Set<String>> postings = new ConcurrentSkipListMap<>();
+    private final Map<String, Indexed> documents = new ConcurrentHashMap<>();
+
+    public synchronized void upsert(String contentType, NewsDto dto) {
+        if (dto == null || dto.getId() == null) return;
+        remove(dto.getId());
+        Set<String> titleTokens = tokenize(dto.getTitle());
+        Set<String> allTokens = new HashSet<>(titleTokens);
+        allTokens.addAll(tokenize(dto.getDescription()));
+        for (String token : allTokens) {
+            postings.computeIfAbsent(token, t -> ConcurrentHashMap.newKeySet()).add(dto.getId());
+        }
+        // Las novedades fijas no usan is_active: se muestran siempre, igual que en el feed
+        boolean requiresActive = ContentfulService.CONTENT_TYPE_NEWS.equals(contentType);
+        documents.put(dto.getId(), new Indexed(dto, requiresActive, titleTokens, allTokens));
+    }
+
+    public synchronized void remove(String entryId) {
+        Indexed previous = documents.remove(entryId);
+        if (previous == null) return;
+        for (String token : previous.tokens()) {
+            Set<String> ids = postings.get(token);
+            if (ids != null) {
+                ids.remove(entryId);
+                if (ids.isEmpty()) postings.remove(token);
+            }
+        }
+    }
+
+    /**
+     * Devuelve las novedades activas y vigentes que contienen todos los términos (como prefijo o, si son
+     * cortos, como palabra), primero las que matchean en el título y después por prioridad y fecha de creación.
+     */
+    public List<NewsDto> search(String query, Audience audience, int limit) {
+        List<String> terms = List.copyOf(tokenize(query));
+        if (terms.isEmpty() || limit <= 0) return List.of();
+
+        // Solo se recorren los postings del término más selectivo; el resto se verifica contra los
+        // tokens de cada candidato, sin copiar ni intersectar los postings de todos los términos
+        List<Set<String>> driver = null;
+        int driverSize = Integer.MAX_VALUE;
+        for (String term : terms) {
+            Expansion expansion = postingsFor(term);
+            if (!expansion.complete()) continue; // prefijo demasiado amplio: solo se verifica
+            int size = 0;
+            for (Set<String> posting : expansion.postings()) {
+                size += posting.size();
+            }
+            if (size == 0) return List.of();
+            if (size < driverSize) {
+                driver = expansion.postings();
+                driverSize = size;
+            }
+        }
+        // Todos los términos son prefijos demasiado amplios: se recorren los documentos una sola vez
+        // en lugar de unir los postings de miles de palabras
+        List<Set<String>> candidatePostings = (driver == null) ? List.of(documents.keySet()) : driver;
+
+        ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
+        Comparator<Indexed> ranking = Comparator
+                .comparingInt((Indexed doc) -> titleHits(doc, terms)).reversed()
+                .thenComparing((Indexed doc) -> Boolean.TRUE.equals(doc.item().getPriority()), Comparator.reverseOrder())
+                .thenComparing((Indexed doc) -> doc.item().getCreatedAt(), Comparator.nullsLast(Comparator.reverseOrder()));
+
+        Set<String> seen = new HashSet<>();
+        List<Indexed> candidates = new ArrayList<>();
+        for (Set<String> posting : candidatePostings) {
+            for (String id : posting) {
+                if (!seen.add(id)) continue;
+                Indexed doc = documents.get(id);
+                if (doc != null && containsAll(doc, terms) && isVisible(doc, audience, now)) {
+                    candidates.add(doc);
+                }
+            }
+        }
+
+        return candidates.stream()
+                .sorted(ranking)
+                .limit(limit)
+                .map(Indexed::item)
+                .toList();
+    }
+
+    public int size() {
+        return documents.size();
+    }
+
+    // Minúsculas y sin tildes ni diéresis: "Año Nuevo" -> [ano, nuevo]
+    static String normalize(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    static Set<String> tokenize(String text) {
+        Set<String> tokens = new LinkedHashSet<>();
+        if (text == null || text.isBlank()) return tokens;
+        for (String token : SEPARATORS.split(normalize(text))) {
+            if (!token.isEmpty()) tokens.add(token);
+        }
+        return tokens;
+    }
+
+    // Postings de las palabras que matchean el término, sin copiarlos. Se deja de expandir al pasar el tope
+    private Expansion postingsFor(String term) {
+        if (term.length() < MIN_PREFIX_LENGTH) {
+            Set<String> exact = postings.get(term);
+            return new Expansion((exact == null) ? List.of() : List.of(exact), true);
+        }
+        List<Set<String>> matches = new ArrayList<>();
+        for (Set<String> posting : postings.subMap(term, true, term + Character.MAX_VALUE, true).values()) {
+            if (matches.size() == MAX_PREFIX_EXPANSION) return new Expansion(matches, false);
+            matches.add(posting);
+        }
+        return new Expansion(matches, true);
+    }
+
+    private boolean containsAll(Indexed doc, List<String> terms) {
+        for (String term : terms) {
+            if (!containsTerm(doc.tokens(), term)) return false;
+        }
+        return true;
+    }
+
+    private static boolean containsTerm(Set<String> tokens, String term) {
+        if (term.length() < MIN_PREFIX_LENGTH) return tokens.contains(term);
+        for (String token : tokens) {
+            if (token.startsWith(term)) return true;
+        }
+        return false;
+    }
+
+    private int titleHits(Indexed doc, List<String> terms) {
+        int hits = 0;
+        for (String term : terms) {
+            if (containsTerm(doc.titleTokens(), term)) hits++;
+        }
+        return hits;
+    }
+
+    // Mismos filtros que el feed: noticia activa y no expirada, dirigida a la audiencia pedida
+    private boolean isVisible(Indexed doc, Audience audience, ZonedDateTime now) {
+        NewsDto dto = doc.item();
+        if (doc.requiresActive()) {
+            if (!Boolean.TRUE.equals(dto.getActive())) return false;
+            if (dto.getExpirationDate() != null && !dto.getExpirationDate().isAfter(now)) return false;
+        }
+        if (audience == Audience.MOBY_APP) return Boolean.TRUE.equals(dto.getIsMobyApp());
+        if (audience == Audience.MOBY_WEB) return Boolean.TRUE.equals(dto.getIsMobyWeb());
+        return true;
+    }
+
+    // complete == false si el prefijo abarca más palabras que el tope y la lista quedó recortada
+    private record Expansion(List<Set<String>> postings, boolean complete) {
+    }
+
+    private record Indexed(NewsDto item, boolean requiresActive, Set<String> titleTokens, Set<String> tokens) {
+    }
+}
@@ -0,0 +1,147 @@
+package com.mobydigital.academy.news.service;
+
+import com.mobydigital.academy.news.dto.Audience;
+import com.mobydigital.academy.news.dto.NewsDto;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Estado materializado de las entradas (news y novedadesFijas), replicado desde el topic compactado.
+ * Mientras no esté listo, el feed se sigue armando contra la CDA.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class NewsStateStore {
+
+    private static final int MAX_REMOVALS = 10_000;
+
+    // Todo cambio de estado pasa por acá, así el índice de búsqueda se actualiza de forma incremental
+    private final NewsSearchIndex searchIndex;
+
+    private final Map<String, StoredEntry> entries = new ConcurrentHashMap<>();
+    // id del asset -> ids de las entradas que lo usan como imagen
+    private final Map<String, Set<String>> entriesByAsset = new ConcurrentHashMap<>();
+    // Entradas retiradas -> revisión con la que se retiraron (null si no se conoce), para no revivirlas
+    // con una copia atrasada de la CDA
+    private final Map<String, Integer> removals = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+            return size() > MAX_REMOVALS;
+        }
+    };
+    private volatile boolean ready;
+
+    public void upsert(String contentType, NewsDto dto) {
+        upsert(contentType, dto, null);
+    }
+
+    // revision: sys.revision publicada de la entrada (null si no se conoce), usada para reconciliar contra la CDA
+    public synchronized void upsert(String contentType, NewsDto dto, Integer revision) {
+        if (dto == null || dto.getId() == null) return;
+        unlinkAsset(entries.put(dto.getId(), new StoredEntry(contentType, dto, revision)));
+        removals.remove(dto.getId());
+        String assetId = assetIdOf(dto);
+        if (assetId != null) {
+            entriesByAsset.computeIfAbsent(assetId, id -> ConcurrentHashMap.newKeySet()).add(dto.getId());
+        }
+        searchIndex.upsert(contentType, dto);
+    }
+
+    public NewsDto remove(String entryId) {
+        return remove(entryId, null);
+    }
+
+    // Devuelve la última versión conocida de la entrada (null si no estaba)
+    public synchronized NewsDto remove(String entryId, Integer revision) {
+        if (entryId == null) return null;
+        // El tombstone que vuelve de Kafka no trae revisión: no pisa la del unpublish
+        if (revision != null || !removals.containsKey(entryId)) removals.put(entryId, revision);
+        StoredEntry previous = entries.remove(entryId);
+        unlinkAsset(previous);
+        searchIndex.remove(entryId);
+        return previous == null ? null : previous.item();
+    }
+
+    // true si la revisión ya no es la vigente: la entrada se retiró en esa revisión o después,
+    // o el estado tiene una revisión más nueva. Un retiro sin revisión conocida no descarta nada
+    public synchronized boolean isSuperseded(String entryId, Integer revision) {
+        if (removals.containsKey(entryId)) {
+            Integer removedAt = removals.get(entryId);
+            return removedAt != null && (revision == null || revision <= removedAt);
+        }
+        StoredEntry current = entries.get(entryId);
+        return current != null && current.revision() != null && revision != null && current.revision() > revision;
+    }
+
+    public Optional<StoredEntry> get(String entryId) {
+        return Optional.ofNullable(entryId == null ? null : entries.get(entryId));
+    }
+
+    // Entradas cuya imagen es el asset indicado
+    public List<StoredEntry> withAsset(String assetId) {
+        Set<String> ids = (assetId == null) ? null : entriesByAsset.get(assetId);
+        if (ids == null) return List.of();
+        return ids.stream()
+                .map(entries::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    public List<NewsDto> byContentType(String contentType) {
+        return entriesOf(contentType).stream()
+                .map(StoredEntry::item)
+                .toList();
+    }
+
+    public List<StoredEntry> entriesOf(String contentType) {
+        return entries.values().stream()
+                .filter(e -> e.contentType().equals(contentType))
+                .toList();
+    }
+
+    public List<NewsDto> search(String query, Audience audience, int limit) {
+        return searchIndex.search(query, audience, limit);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void markReady() {
+        if (!ready) {
+            ready = true;
+            log.info("Estado de novedades listo: {} entradas en memoria.", entries.size());
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void unlinkAsset(StoredEntry previous) {
+        String assetId = (previous == null) ? null : assetIdOf(previous.item());
+        if (assetId == null) return;
+        Set<String> ids = entriesByAsset.get(assetId);
+        if (ids != null) {
+            ids.remove(previous.item().getId());
+            if (ids.isEmpty()) entriesByAsset.remove(assetId);
+        }
+    }
+
+    private static String assetIdOf(NewsDto dto) {
+        return dto.getImage() == null ? null : dto.getImage().getId();
+    }
+
+    public record StoredEntry(String contentType, NewsDto item, Integer revision) {
+    }
+}
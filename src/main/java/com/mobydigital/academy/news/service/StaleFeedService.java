@@ -0,0 +1,67 @@
+package com.mobydigital.academy.news.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mobydigital.academy.news.dto.Audience;
+import com.mobydigital.academy.news.dto.ImageFormat;
+import com.mobydigital.academy.news.dto.NewsDto;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+
+// Feed JSON armado con el último snapshot, sin ir a Contentful: lo usa el control de admisión al descartar lecturas
+@Service
+@RequiredArgsConstructor
+public class StaleFeedService {
+
+    private final ContentfulService contentfulService;
+    private final ImageUrlService imageUrlService;
+    private final FeedEncodingService feedEncodingService;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Escribe el feed desactualizado con los mismos parámetros que el endpoint del feed.
+     * Devuelve false sin tocar la respuesta si se pidió un formato binario o todavía no hay snapshot.
+     */
+    public boolean write(Audience audience, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        // Solo el feed JSON tiene una versión previa que se pueda servir sin trabajo extra
+        if (feedEncodingService.negotiate(request.getHeader(HttpHeaders.ACCEPT)).isPresent()) return false;
+
+        Optional<List<NewsDto>> stale = contentfulService.staleFinalNews(audience, request.getParameter("rotationKey"));
+        if (stale.isEmpty() || stale.get().isEmpty()) return false;
+
+        List<NewsDto> news = imageUrlService.adapt(stale.get(),
+                ImageUrlService.sizeFor(parseInteger(request.getParameter("width")), parseDouble(request.getParameter("dpr"))),
+                ImageFormat.from(request.getParameter("format")));
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        // Igual que el feed normal: el cuerpo depende del Accept, así un cache no lo sirve a un cliente CBOR/Smile
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        response.setHeader("Warning", "110 - \"Response is Stale\"");
+        objectMapper.writeValue(response.getOutputStream(), news);
+        return true;
+    }
+
+    private static Integer parseInteger(String value) {
+        try {
+            return value == null ? null : Integer.valueOf(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static Double parseDouble(String value) {
+        try {
+            return value == null ? null : Double.valueOf(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package com.mobydigital.academy.news.service;
+
+import com.mobydigital.academy.news.dto.WebhookEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Idempotencia de webhooks: descarta reentregas (mismo delivery id) y eventos viejos o fuera de orden.
+ * Para publish/unpublish se guarda, por entidad, la última (revisión, acción) procesada: un unpublish lleva
+ * la misma revisión que el publish que retira, así que va después de él, y un publish con revisión menor
+ * o igual a la de un unpublish ya procesado es una entrega atrasada y no vuelve a publicar la entrada.
+ * Antes de procesar, el evento se reclama de forma atómica por entidad: otra entrega de la misma entidad
+ * que llega mientras la primera sigue en curso no se procesa en paralelo.
+ * Se guarda en memoria con tamaño acotado y, opcionalmente, en Redis para compartirlo entre réplicas.
+ */
+@Service
+@Slf4j
+public class WebhookDeduplicator {
+
+    private static final String REDIS_PREFIX = "ms-news:webhook:";
+    // Solo estas acciones cambian lo que expone la CDA y tienen un orden entre sí
+    private static final Set<String> ORDERED_ACTIONS = Set.of("publish", "unpublish");
+
+    /**
+     * Claim atómico en Redis: 0 si es duplicado (delivery ya procesado u orden no mayor al registrado),
+     * 1 si se reclamó y 2 si otra entrega de la misma entidad está en curso.
+     * KEYS: estado de la entidad (hash), claim, delivery. ARGV: orden del evento, ttl del claim (ms), hay delivery.
+     */
+    private static final RedisScript<Long> CLAIM = new DefaultRedisScript<>(
+            "if ARGV[3] == '1' and redis.call('EXISTS', KEYS[3]) == 1 then return 0 end "
+                    + "local last = redis.call('HGET', KEYS[1], 'order') "
+                    + "if last and tonumber(last) >= tonumber(ARGV[1]) then return 0 end "
+                    + "if redis.call('SET', KEYS[2], '1', 'NX', 'PX', ARGV[2]) then return 1 end "
+                    + "return 2",
+            Long.class);
+
+    // Registra (revisión, acción) solo si el evento es posterior al guardado y suelta el claim en el mismo paso
+    private static final RedisScript<Long> MARK_PROCESSED = new DefaultRedisScript<>(
+            "local last = redis.call('HGET', KEYS[1], 'order') "
+                    + "if not last or tonumber(last) < tonumber(ARGV[1]) then "
+                    + "redis.call('HSET', KEYS[1], 'order', ARGV[1], 'revision', ARGV[2], 'action', ARGV[3]) "
+                    + "redis.call('EXPIRE', KEYS[1], ARGV[4]) end "
+                    + "redis.call('DEL', KEYS[2]) return 1",
+            Long.class);
+
+    public enum Claim {
+        ACQUIRED,   // hay que procesarlo y después llamar a markProcessed o release
+        DUPLICATE,  // ya procesado o desactualizado
+        IN_FLIGHT   // otra entrega de la misma entidad se está procesando
+    }
+
+    private final int maxEntries;
+    private final Map<String, EntityState> entities = new ConcurrentHashMap<>();
+    private final Map<String, Long> deliveries = new ConcurrentHashMap<>();
+    private final Set<String> deliveriesInFlight = ConcurrentHashMap.newKeySet();
+    private final StringRedisTemplate redis;
+    private final Duration ttl;
+    private final Duration claimTtl;
+
+    public WebhookDeduplicator(@Value("${webhook.dedup.max-entries:10000}") int maxEntries,
+                               @Value("${webhook.dedup.ttl:PT24H}") Duration ttl,
+                               @Value("${webhook.dedup.claim-ttl:PT5M}") Duration claimTtl,
+                               @Value("${webhook.dedup.redis.enabled:false}") boolean redisEnabled,
+                               ObjectProvider<StringRedisTemplate> redisTemplate) {
+        this.maxEntries = maxEntries;
+        this.ttl = ttl;
+        this.claimTtl = claimTtl;
+        this.redis = redisEnabled ? redisTemplate.getIfAvailable() : null;
+    }
+
+    /**
+     * Verifica que el evento no se haya procesado y lo reclama en el mismo paso (compute local y script en Redis).
+     * El claim en Redis vence a los {@code claimTtl} para no bloquear la entidad si la réplica se cae a mitad de camino.
+     */
+    public Claim tryClaim(WebhookEvent event) {
+        if (event.getDeliveryId() != null && deliveries.containsKey(event.getDeliveryId())) return Claim.DUPLICATE;
+        boolean ordered = isOrdered(event);
+        if (!ordered && event.getDeliveryId() == null) return Claim.ACQUIRED; // sin id ni revisión no hay nada que deduplicar
+
+        Claim local = ordered ? claimEntity(event) : claimDelivery(event);
+        if (local != Claim.ACQUIRED || redis == null) return local;
+
+        Claim shared = claimInRedis(event, ordered);
+        if (shared != Claim.ACQUIRED) releaseLocal(event);
+        return shared;
+    }
+
+    // Se registra recién después de procesar, así un reintento de Contentful tras un error no se descarta
+    public void markProcessed(WebhookEvent event) {
+        long now = System.nanoTime();
+        if (event.getDeliveryId() != null) {
+            deliveries.put(event.getDeliveryId(), now);
+            deliveriesInFlight.remove(event.getDeliveryId());
+        }
+        if (isOrdered(event)) {
+            long order = orderOf(event);
+            entities.compute(event.getEntityId(), (id, current) ->
+                    current != null && current.order() >= order
+                            ? current.released(now)
+                            : new EntityState(order, event.getRevision(), event.getAction(), false, now));
+        }
+        markInRedis(event);
+        trim();
+    }
+
+    // El procesamiento falló: se suelta el claim para que el reintento de Contentful pueda procesarlo
+    public void release(WebhookEvent event) {
+        releaseLocal(event);
+        if (redis == null) return;
+        String claimKey = claimKey(event);
+        if (claimKey == null) return;
+        try {
+            redis.delete(REDIS_PREFIX + claimKey);
+        } catch (Exception e) {
+            log.warn("No se pudo liberar el claim del webhook en Redis: {}", e.getMessage());
+        }
+    }
+
+    private Claim claimEntity(WebhookEvent event) {
+        long order = orderOf(event);
+        Claim[] result = new Claim[1];
+        entities.compute(event.getEntityId(), (id, current) -> {
+            if (current != null && current.order() >= order) {
+                result[0] = Claim.DUPLICATE;
+                return current;
+            }
+            if (current != null && current.inFlight()) {
+                result[0] = Claim.IN_FLIGHT;
+                return current;
+            }
+            result[0] = Claim.ACQUIRED;
+            return current == null ? EntityState.firstClaim(System.nanoTime()) : current.claimed();
+        });
+        return result[0];
+    }
+
+    private Claim claimDelivery(WebhookEvent event) {
+        return deliveriesInFlight.add(event.getDeliveryId()) ? Claim.ACQUIRED : Claim.IN_FLIGHT;
+    }
+
+    private void releaseLocal(WebhookEvent event) {
+        if (isOrdered(event)) {
+            // Una entidad reclamada por primera vez no tiene nada procesado: se quita entera
+            entities.computeIfPresent(event.getEntityId(), (id, current) ->
+                    current.revision() == null ? null : current.released(current.touchedAt()));
+        } else if (event.getDeliveryId() != null) {
+            deliveriesInFlight.remove(event.getDeliveryId());
+        }
+    }
+
+    private Claim claimInRedis(WebhookEvent event, boolean ordered) {
+        try {
+            if (!ordered) {
+                if (Boolean.TRUE.equals(redis.hasKey(REDIS_PREFIX + "delivery:" + event.getDeliveryId()))) {
+                    return Claim.DUPLICATE;
+                }
+                return Boolean.TRUE.equals(redis.opsForValue().setIfAbsent(REDIS_PREFIX + claimKey(event), "1", claimTtl))
+                        ? Claim.ACQUIRED : Claim.IN_FLIGHT;
+            }
+            boolean hasDelivery = event.getDeliveryId() != null;
+            Long result = redis.execute(CLAIM,
+                    List.of(REDIS_PREFIX + entityKey(event), REDIS_PREFIX + claimKey(event),
+                            REDIS_PREFIX + "delivery:" + (hasDelivery ? event.getDeliveryId() : "")),
+                    String.valueOf(orderOf(event)), String.valueOf(claimTtl.toMillis()), hasDelivery ? "1" : "0");
+            if (result == null) return Claim.ACQUIRED;
+            return result == 0 ? Claim.DUPLICATE : result == 1 ? Claim.ACQUIRED : Claim.IN_FLIGHT;
+        } catch (Exception e) {
+            log.warn("No se pudo reclamar el webhook en Redis, se sigue solo con el claim local: {}", e.getMessage());
+            return Claim.ACQUIRED;
+        }
+    }
+
+    private void markInRedis(WebhookEvent event) {
+        if (redis == null) return;
+        try {
+            if (event.getDeliveryId() != null) {
+                redis.opsForValue().set(REDIS_PREFIX + "delivery:" + event.getDeliveryId(), "1", ttl);
+            }
+            if (isOrdered(event)) {
+                redis.execute(MARK_PROCESSED,
+                        List.of(REDIS_PREFIX + entityKey(event), REDIS_PREFIX + claimKey(event)),
+                        String.valueOf(orderOf(event)), String.valueOf(event.getRevision()), event.getAction(),
+                        String.valueOf(ttl.toSeconds()));
+            } else if (event.getDeliveryId() != null) {
+                redis.delete(REDIS_PREFIX + claimKey(event));
+            }
+        } catch (Exception e) {
+            log.warn("No se pudo registrar el webhook en Redis: {}", e.getMessage());
+        }
+    }
+
+    // Cota de memoria: al pasarse se descartan los registros más viejos que no estén en curso
+    private void trim() {
+        trim(deliveries, Map.Entry.comparingByValue(), entry -> true);
+        trim(entities, Comparator.comparingLong(entry -> entry.getValue().touchedAt()),
+                entry -> !entry.getValue().inFlight());
+    }
+
+    private <V> void trim(Map<String, V> map, Comparator<Map.Entry<String, V>> oldestFirst,
+                          Predicate<Map.Entry<String, V>> evictable) {
+        if (map.size() <= maxEntries) return;
+        // Se baja al 90% para no reordenar en cada inserción una vez alcanzado el límite
+        int excess = map.size() - maxEntries * 9 / 10;
+        map.entrySet().stream()
+                .filter(evictable)
+                .sorted(oldestFirst)
+                .limit(excess)
+                .map(Map.Entry::getKey)
+                .toList()
+                .forEach(map::remove);
+    }
+
+    private boolean isOrdered(WebhookEvent event) {
+        return event.getEntityId() != null && event.getRevision() != null && ORDERED_ACTIONS.contains(event.getAction());
+    }
+
+    // Orden de los eventos de una entidad: por revisión y, a igual revisión, el unpublish después del publish
+    private long orderOf(WebhookEvent event) {
+        return event.getRevision() * 2L + ("unpublish".equals(event.getAction()) ? 1 : 0);
+    }
+
+    private String entityKey(WebhookEvent event) {
+        return "entity:" + event.getEntityId();
+    }
+
+    // Un claim por entidad serializa sus eventos; sin revisión se usa el delivery id
+    private String claimKey(WebhookEvent event) {
+        if (isOrdered(event)) return "claim:entity:" + event.getEntityId();
+        return event.getDeliveryId() != null ? "claim:delivery:" + event.getDeliveryId() : null;
+    }
+
+    // Última (revisión, acción) procesada de la entidad; order == -1 si todavía no se procesó ninguna
+    private record EntityState(long order, Integer revision, String action, boolean inFlight, long touchedAt) {
+
+        static EntityState firstClaim(long now) {
+            return new EntityState(-1, null, null, true, now);
+        }
+
+        EntityState claimed() {
+            return new EntityState(order, revision, action, true, touchedAt);
+        }
+
+        EntityState released(long now) {
+            return new EntityState(order, revision, action, false, now);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.mobydigital.academy.news.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mobydigital.academy.news.dto.WebhookEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Lee solo el bloque sys del webhook (payload.sys o payload.entity.sys) con el parser de streaming,
+ * salteando fields y el resto del documento sin construir ningún árbol.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class WebhookPayloadParser {
+
+    private final ObjectMapper objectMapper;
+
+    public WebhookEvent parse(String topic, String deliveryId, byte[] body) {
+        SysInfo sys = new SysInfo();
+        if (body != null && body.length > 0) {
+            try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+                if (parser.nextToken() == JsonToken.START_OBJECT) {
+                    readRoot(parser, sys);
+                }
+            } catch (IOException e) {
+                log.warn("Payload de webhook ilegible: {}", e.getMessage());
+            }
+        }
+        return new WebhookEvent(topic, deliveryId, sys.id, sys.revision, sys.contentType);
+    }
+
+    // Árbol completo de la entidad; solo se usa en los publish, donde hacen falta los fields
+    public JsonNode readEntity(byte[] body) {
+        if (body == null || body.length == 0) return null;
+        try {
+            JsonNode root = objectMapper.readTree(body);
+            return root.has("entity") ? root.get("entity") : root;
+        } catch (IOException e) {
+            log.warn("Payload de webhook ilegible: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void readRoot(JsonParser parser, SysInfo sys) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if ("sys".equals(name) && value == JsonToken.START_OBJECT) {
+                readSys(parser, sys);
+                if (sys.id != null) return;
+            } else if ("entity".equals(name) && value == JsonToken.START_OBJECT && sys.id == null) {
+                readRoot(parser, sys);
+                if (sys.id != null) return;
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private void readSys(JsonParser parser, SysInfo sys) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            switch (name) {
+                case "id" -> sys.id = parser.getValueAsString();
+                case "revision" -> sys.revision = value.isNumeric() ? parser.getIntValue() : null;
+                case "contentType" -> sys.contentType = readLinkId(parser, value);
+                default -> parser.skipChildren();
+            }
+        }
+    }
+
+    // {"sys": {"type": "Link", "id": "..."}}
+    private String readLinkId(JsonParser parser, JsonToken value) throws IOException {
+        if (value != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return null;
+        }
+        String id = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            JsonToken inner = parser.nextToken();
+            if ("sys".equals(name) && inner == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.getCurrentName();
+                    parser.nextToken();
+                    if ("id".equals(field)) id = parser.getValueAsString();
+                    else parser.skipChildren();
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return id;
+    }
+
+    private static class SysInfo {
+        private String id;
+        private Integer revision;
+        private String contentType;
+    }
+}
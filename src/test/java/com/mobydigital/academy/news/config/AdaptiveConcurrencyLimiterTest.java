@@ -0,0 +1,94 @@
+package com.mobydigital.academy.news.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    // Ocupa todo el límite y libera cada lugar como si el request hubiera tardado rttMillis
+    private static void saturate(AdaptiveConcurrencyLimiter limiter, long rttMillis, boolean failed) {
+        int acquired = 0;
+        while (limiter.tryAcquire()) acquired++;
+        long start = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(rttMillis);
+        for (int i = 0; i < acquired; i++) {
+            limiter.release(start, failed);
+        }
+    }
+
+    @Test
+    void acquireIsBoundedByTheLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 3, 1, 10);
+
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isFalse();
+        assertThat(limiter.getInflight()).isEqualTo(3);
+
+        limiter.release(System.nanoTime(), true);
+        assertThat(limiter.getInflight()).isEqualTo(2);
+        assertThat(limiter.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void stableLatencyUnderLoadGrowsTheLimitUpToTheMax() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 10, 2, 50);
+
+        for (int round = 0; round < 100; round++) {
+            saturate(limiter, 10, false);
+        }
+
+        assertThat(limiter.getLimit()).isEqualTo(50);
+        assertThat(limiter.getInflight()).isZero();
+    }
+
+    @Test
+    void latencySpikeShrinksTheLimitAndItRecoversAfterwards() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 40, 2, 100);
+        for (int round = 0; round < 50; round++) {
+            saturate(limiter, 10, false);
+        }
+        int beforeSpike = limiter.getLimit();
+
+        for (int round = 0; round < 20; round++) {
+            saturate(limiter, 200, false);
+        }
+        int duringSpike = limiter.getLimit();
+
+        for (int round = 0; round < 50; round++) {
+            saturate(limiter, 10, false);
+        }
+
+        assertThat(duringSpike).isLessThan(beforeSpike / 2).isGreaterThanOrEqualTo(2);
+        assertThat(limiter.getLimit()).isGreaterThan(duringSpike);
+    }
+
+    @Test
+    void failedRequestsDoNotMoveTheLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 20, 2, 100);
+        saturate(limiter, 10, false);
+        int limit = limiter.getLimit();
+
+        for (int round = 0; round < 20; round++) {
+            saturate(limiter, 5_000, true);
+        }
+
+        assertThat(limiter.getLimit()).isEqualTo(limit);
+        assertThat(limiter.getInflight()).isZero();
+    }
+
+    @Test
+    void samplesUnderLowLoadDoNotMoveTheLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 20, 2, 100);
+
+        for (int i = 0; i < 200; i++) {
+            assertThat(limiter.tryAcquire()).isTrue();
+            limiter.release(System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(i % 2 == 0 ? 10 : 500), false);
+        }
+
+        assertThat(limiter.getLimit()).isEqualTo(20);
+    }
+}
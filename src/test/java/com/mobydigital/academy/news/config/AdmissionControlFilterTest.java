@@ -0,0 +1,76 @@
+package com.mobydigital.academy.news.config;
+
+import com.mobydigital.academy.news.dto.Audience;
+import com.mobydigital.academy.news.service.StaleFeedService;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AdmissionControlFilterTest {
+
+    private StaleFeedService staleFeedService;
+    private AdmissionControlFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        // Un solo lugar para lecturas: alcanza con ver si el segundo request entra o se rechaza
+        staleFeedService = mock(StaleFeedService.class);
+        filter = new AdmissionControlFilter(1, 1, 1, 1, 1, 1, staleFeedService);
+    }
+
+    private static MockHttpServletRequest feedRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/contentful/news/app");
+        request.setServletPath("/contentful/news/app");
+        request.setAsyncSupported(true);
+        return request;
+    }
+
+    private MockHttpServletResponse run(MockHttpServletRequest request, FilterChain chain) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    @Test
+    void permitIsHeldUntilTheAsyncResponseCompletes() throws Exception {
+        MockHttpServletRequest streaming = feedRequest();
+        run(streaming, (req, res) -> req.startAsync(req, res));
+
+        // El cuerpo todavía se está escribiendo: el lugar sigue ocupado
+        assertThat(run(feedRequest(), (req, res) -> { }).getStatus()).isEqualTo(503);
+
+        streaming.getAsyncContext().complete();
+        assertThat(run(feedRequest(), (req, res) -> { }).getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void permitIsReleasedWhenTheRequestEndsSynchronously() throws Exception {
+        assertThat(run(feedRequest(), (req, res) -> { }).getStatus()).isEqualTo(200);
+        assertThat(run(feedRequest(), (req, res) -> { }).getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void rejectedFeedReadIsAnsweredWithTheStaleFeedWhenThereIsOne() throws Exception {
+        MockHttpServletRequest streaming = feedRequest();
+        run(streaming, (req, res) -> req.startAsync(req, res));
+        when(staleFeedService.write(eq(Audience.MOBY_APP), any(), any())).thenAnswer(inv -> {
+            MockHttpServletResponse response = inv.getArgument(2);
+            response.setStatus(200);
+            return true;
+        });
+
+        MockHttpServletResponse response = run(feedRequest(), (req, res) -> { });
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getHeader("Retry-After")).isNull();
+        streaming.getAsyncContext().complete();
+    }
+}
@@ -0,0 +1,86 @@
+package com.mobydigital.academy.news.controller;
+
+import com.mobydigital.academy.news.dto.Audience;
+import com.mobydigital.academy.news.dto.CatalogFilter;
+import com.mobydigital.academy.news.exception.GlobalExceptionHandler;
+import com.mobydigital.academy.news.exception.InvalidCursorException;
+import com.mobydigital.academy.news.service.CatalogService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class CatalogControllerTest {
+
+    private CatalogService catalogService;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        catalogService = mock(CatalogService.class);
+        mockMvc = MockMvcBuilders.standaloneSetup(new CatalogController(catalogService))
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+    }
+
+    @Test
+    void invalidCursorIsRejectedBeforeStreaming() throws Exception {
+        doThrow(new InvalidCursorException("Cursor inválido: roto")).when(catalogService).checkCursor("roto");
+
+        mockMvc.perform(get("/contentful/catalog").param("cursor", "roto"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Invalid request: Cursor inválido: roto"));
+
+        verify(catalogService, never()).streamCatalog(any(), any(), anyInt(), any());
+    }
+
+    @Test
+    void streamsThePageWithTheRequestFilters() throws Exception {
+        doAnswer(inv -> {
+            inv.<OutputStream>getArgument(3).write("{\"items\":[],\"nextCursor\":null}".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(catalogService).streamCatalog(any(), eq("MQ"), eq(50), any());
+
+        MvcResult started = mockMvc.perform(get("/contentful/catalog")
+                        .param("audience", "MOBY_WEB")
+                        .param("priority", "true")
+                        .param("expiringBefore", "2025-12-31T23:59:59Z")
+                        .param("cursor", "MQ")
+                        .param("limit", "50"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"items\":[],\"nextCursor\":null}"));
+
+        ArgumentCaptor<CatalogFilter> filter = ArgumentCaptor.forClass(CatalogFilter.class);
+        verify(catalogService).streamCatalog(filter.capture(), eq("MQ"), eq(50), any());
+        assertThat(filter.getValue().getAudience()).isEqualTo(Audience.MOBY_WEB);
+        assertThat(filter.getValue().getPriority()).isTrue();
+        assertThat(filter.getValue().getExpiringBefore().toInstant())
+                .isEqualTo(ZonedDateTime.of(2025, 12, 31, 23, 59, 59, 0, ZoneOffset.UTC).toInstant());
+    }
+}
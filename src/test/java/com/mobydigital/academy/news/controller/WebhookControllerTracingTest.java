@@ -0,0 +1,171 @@
+package com.mobydigital.academy.news.controller;
+
+import com.mobydigital.academy.news.dto.NewsDto;
+import com.mobydigital.academy.news.dto.WebhookEvent;
+import com.mobydigital.academy.news.service.AssetCacheService;
+import com.mobydigital.academy.news.service.CdaCrossCheckService;
+import com.mobydigital.academy.news.service.ContentfulService;
+import com.mobydigital.academy.news.service.FeedStateService;
+import com.mobydigital.academy.news.service.NewsMapper;
+import com.mobydigital.academy.news.service.NotificationService;
+import com.mobydigital.academy.news.service.WebhookDeduplicator;
+import com.mobydigital.academy.news.service.WebhookPayloadParser;
+import io.micrometer.observation.ObservationHandler;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.tracing.handler.DefaultTracingObservationHandler;
+import io.micrometer.tracing.handler.PropagatingSenderTracingObservationHandler;
+import io.micrometer.tracing.otel.bridge.OtelCurrentTraceContext;
+import io.micrometer.tracing.otel.bridge.OtelPropagator;
+import io.micrometer.tracing.otel.bridge.OtelTracer;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.propagation.W3CTraceContextPropagator;
+import io.opentelemetry.context.propagation.ContextPropagators;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Tracer OpenTelemetry real con propagación W3C; los spans terminados se juntan en memoria
+class WebhookControllerTracingTest {
+
+    private static final String ENTRY_ID = "entry-1";
+    private static final String UNPUBLISH = "ContentManagement.Entry.unpublish";
+
+    private final List<SpanData> spans = new CopyOnWriteArrayList<>();
+    private SdkTracerProvider tracerProvider;
+    private GenericApplicationContext context;
+    private MockProducer<String, String> producer;
+    private KafkaTemplate<String, String> stateTemplate;
+    private FeedStateService feedStateService;
+    private WebhookController controller;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        tracerProvider = SdkTracerProvider.builder()
+                .addSpanProcessor(SimpleSpanProcessor.create(new CollectingExporter(spans)))
+                .build();
+        io.opentelemetry.api.trace.Tracer otelTracer = tracerProvider.get("test");
+        OtelTracer tracer = new OtelTracer(otelTracer, new OtelCurrentTraceContext(), event -> { });
+        OtelPropagator propagator = new OtelPropagator(
+                ContextPropagators.create(W3CTraceContextPropagator.getInstance()), otelTracer);
+
+        ObservationRegistry registry = ObservationRegistry.create();
+        registry.observationConfig().observationHandler(new ObservationHandler.FirstMatchingCompositeObservationHandler(
+                new PropagatingSenderTracingObservationHandler<>(tracer, propagator),
+                new DefaultTracingObservationHandler(tracer)));
+
+        // Mismo template que KafkaConfigProducer, con un producer en memoria
+        producer = new MockProducer<>(true, new StringSerializer(), new StringSerializer());
+        ProducerFactory<String, String> producerFactory = mock(ProducerFactory.class);
+        when(producerFactory.createProducer()).thenReturn(producer);
+        stateTemplate = new KafkaTemplate<>(producerFactory);
+        stateTemplate.setObservationEnabled(true);
+        context = new GenericApplicationContext();
+        context.registerBean(ObservationRegistry.class, () -> registry);
+        context.refresh();
+        stateTemplate.setApplicationContext(context);
+        stateTemplate.afterSingletonsInstantiated();
+
+        WebhookPayloadParser payloadParser = mock(WebhookPayloadParser.class);
+        when(payloadParser.parse(any(), any(), any()))
+                .thenReturn(new WebhookEvent(UNPUBLISH, "delivery-1", ENTRY_ID, 4, ContentfulService.CONTENT_TYPE_NEWS));
+        WebhookDeduplicator deduplicator = mock(WebhookDeduplicator.class);
+        when(deduplicator.tryClaim(any())).thenReturn(WebhookDeduplicator.Claim.ACQUIRED);
+        feedStateService = mock(FeedStateService.class);
+
+        controller = new WebhookController(mock(ContentfulService.class), mock(NotificationService.class),
+                mock(AssetCacheService.class), feedStateService, payloadParser, deduplicator,
+                mock(NewsMapper.class), mock(CdaCrossCheckService.class), registry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        context.close();
+        tracerProvider.close();
+    }
+
+    @Test
+    void webhookIsRootSpanAndKafkaRecordCarriesTraceparent() throws Exception {
+        // El tombstone del estado se produce dentro del procesamiento del webhook
+        when(feedStateService.publishRemoval(ENTRY_ID, 4)).thenAnswer(inv -> {
+            stateTemplate.send("news-state", ENTRY_ID, null).get();
+            return NewsDto.builder().id(ENTRY_ID).build();
+        });
+
+        controller.handleContentfulWebhook(UNPUBLISH, "delivery-1", new byte[0]);
+
+        SpanData webhook = spans.stream()
+                .filter(span -> span.getName().equals("handleContentfulWebhook"))
+                .findFirst().orElseThrow();
+        SpanData send = spans.stream()
+                .filter(span -> span.getKind() == SpanKind.PRODUCER)
+                .findFirst().orElseThrow();
+
+        assertThat(webhook.getParentSpanContext().isValid()).isFalse();
+        assertThat(webhook.getAttributes().get(AttributeKey.stringKey("topic"))).isEqualTo(UNPUBLISH);
+        assertThat(webhook.getAttributes().get(AttributeKey.stringKey("entry.id"))).isEqualTo(ENTRY_ID);
+        assertThat(send.getTraceId()).isEqualTo(webhook.getTraceId());
+        assertThat(send.getParentSpanId()).isEqualTo(webhook.getSpanId());
+
+        Header traceparent = producer.history().get(0).headers().lastHeader("traceparent");
+        assertThat(traceparent).isNotNull();
+        assertThat(new String(traceparent.value(), StandardCharsets.UTF_8))
+                .isEqualTo("00-" + send.getTraceId() + "-" + send.getSpanId() + "-01");
+    }
+
+    @Test
+    void failedWebhookSpanRecordsTheError() {
+        when(feedStateService.publishRemoval(ENTRY_ID, 4)).thenThrow(new IllegalStateException("Kafka caído"));
+
+        assertThatThrownBy(
+                () -> controller.handleContentfulWebhook(UNPUBLISH, "delivery-1", new byte[0]))
+                .isInstanceOf(IllegalStateException.class);
+
+        SpanData webhook = spans.stream()
+                .filter(span -> span.getName().equals("handleContentfulWebhook"))
+                .findFirst().orElseThrow();
+        assertThat(webhook.getEvents()).anySatisfy(event -> assertThat(event.getName()).isEqualTo("exception"));
+    }
+
+    private record CollectingExporter(List<SpanData> spans) implements SpanExporter {
+
+        @Override
+        public CompletableResultCode export(Collection<SpanData> finished) {
+            spans.addAll(finished);
+            return CompletableResultCode.ofSuccess();
+        }
+
+        @Override
+        public CompletableResultCode flush() {
+            return CompletableResultCode.ofSuccess();
+        }
+
+        @Override
+        public CompletableResultCode shutdown() {
+            return CompletableResultCode.ofSuccess();
+        }
+    }
+}
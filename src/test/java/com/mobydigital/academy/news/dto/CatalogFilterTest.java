@@ -0,0 +1,45 @@
+package com.mobydigital.academy.news.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CatalogFilterTest {
+
+    private static final ZonedDateTime LIMIT = ZonedDateTime.of(2025, 12, 31, 23, 59, 59, 0, ZoneOffset.UTC);
+
+    private static NewsDto item(ZonedDateTime expiration) {
+        return NewsDto.builder()
+                .id("n1")
+                .isMobyApp(true)
+                .isMobyWeb(false)
+                .priority(true)
+                .expirationDate(expiration)
+                .build();
+    }
+
+    @Test
+    void expiringBeforeIsInclusiveAndDropsItemsWithoutExpiration() {
+        CatalogFilter filter = new CatalogFilter(null, null, LIMIT);
+
+        assertThat(filter.matches(item(LIMIT.minusDays(1)))).isTrue();
+        assertThat(filter.matches(item(LIMIT))).isTrue();
+        assertThat(filter.matches(item(LIMIT.plusSeconds(1)))).isFalse();
+        // Las novedades fijas no tienen vencimiento: este filtro las excluye siempre
+        assertThat(filter.matches(item(null))).isFalse();
+    }
+
+    @Test
+    void audienceAndPriorityMustMatch() {
+        NewsDto appOnly = item(null);
+
+        assertThat(new CatalogFilter(Audience.MOBY_APP, null, null).matches(appOnly)).isTrue();
+        assertThat(new CatalogFilter(Audience.MOBY_WEB, null, null).matches(appOnly)).isFalse();
+        assertThat(new CatalogFilter(null, true, null).matches(appOnly)).isTrue();
+        assertThat(new CatalogFilter(null, false, null).matches(appOnly)).isFalse();
+        assertThat(new CatalogFilter(null, null, null).matches(appOnly)).isTrue();
+    }
+}
@@ -0,0 +1,111 @@
+package com.mobydigital.academy.news.service;
+
+import com.contentful.java.cda.CDAAsset;
+import com.contentful.java.cda.CDAClient;
+import com.contentful.java.cda.FetchQuery;
+import com.mobydigital.academy.news.dto.AssetMetadata;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AssetCacheServiceTest {
+
+    private CDAClient client;
+    private FetchQuery<CDAAsset> query;
+    private AssetCacheService service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        client = mock(CDAClient.class);
+        query = mock(FetchQuery.class);
+        when(client.fetch(CDAAsset.class)).thenReturn(query);
+        service = new AssetCacheService(client, ObservationRegistry.NOOP);
+    }
+
+    private static CDAAsset asset(String id, int revision, String url) {
+        CDAAsset asset = mock(CDAAsset.class);
+        when(asset.id()).thenReturn(id);
+        when(asset.url()).thenReturn(url);
+        when(asset.mimeType()).thenReturn("image/jpeg");
+        doReturn(revision).when(asset).getAttribute("revision");
+        doReturn(Map.of("image", Map.of("width", 1600, "height", 900))).when(asset).fileField("details");
+        return asset;
+    }
+
+    @Test
+    void resolveReadsTheMetadataOnce() {
+        CDAAsset asset = asset("img-1", 3, "//images.ctfassets.net/space/img-1/a.jpg");
+
+        AssetMetadata first = service.resolve(asset);
+        AssetMetadata second = service.resolve(asset);
+
+        assertThat(first.getId()).isEqualTo("img-1");
+        assertThat(first.getRevision()).isEqualTo(3);
+        assertThat(first.getUrl()).isEqualTo("//images.ctfassets.net/space/img-1/a.jpg");
+        assertThat(first.getContentType()).isEqualTo("image/jpeg");
+        assertThat(first.getWidth()).isEqualTo(1600);
+        assertThat(second).isSameAs(first);
+        assertThat(service.resolve(null)).isNull();
+    }
+
+    @Test
+    void newRevisionReplacesTheCachedMetadata() {
+        AssetMetadata old = service.resolve(asset("img-1", 3, "//images.ctfassets.net/space/img-1/a.jpg"));
+        AssetMetadata updated = service.resolve(asset("img-1", 4, "//images.ctfassets.net/space/img-1/b.jpg"));
+
+        assertThat(updated).isNotSameAs(old);
+        assertThat(updated.getUrl()).endsWith("/b.jpg");
+    }
+
+    @Test
+    void resolveByIdOnlyCallsTheCdaOnCacheMiss() {
+        CDAAsset asset = asset("img-1", 3, "//images.ctfassets.net/space/img-1/a.jpg");
+        when(query.one("img-1")).thenReturn(asset);
+
+        AssetMetadata first = service.resolveById("img-1");
+        AssetMetadata second = service.resolveById("img-1");
+
+        assertThat(second).isSameAs(first);
+        verify(query, times(1)).one("img-1");
+    }
+
+    @Test
+    void resolveByIdReturnsNullWhenTheCdaFails() {
+        when(query.one("img-1")).thenThrow(new IllegalStateException("CDA caída"));
+
+        assertThat(service.resolveById("img-1")).isNull();
+    }
+
+    @Test
+    void refreshPrefersThePayloadAndFallsBackToTheCda() {
+        service.resolve(asset("img-1", 3, "//images.ctfassets.net/space/img-1/a.jpg"));
+        AssetMetadata fromPayload = new AssetMetadata("img-1", 4, "//images.ctfassets.net/space/img-1/b.jpg", "image/png", 800);
+
+        assertThat(service.refresh("img-1", fromPayload)).isSameAs(fromPayload);
+        assertThat(service.resolveById("img-1")).isSameAs(fromPayload);
+
+        when(query.one("img-1")).thenReturn(asset("img-1", 5, "//images.ctfassets.net/space/img-1/c.jpg"));
+        assertThat(service.refresh("img-1", null).getUrl()).endsWith("/c.jpg");
+    }
+
+    @Test
+    void evictForcesANewLookup() {
+        when(query.one("img-1")).thenReturn(asset("img-1", 3, "//images.ctfassets.net/space/img-1/a.jpg"));
+        service.resolveById("img-1");
+
+        service.evict("img-1");
+        service.resolveById("img-1");
+
+        verify(query, times(2)).one("img-1");
+    }
+}
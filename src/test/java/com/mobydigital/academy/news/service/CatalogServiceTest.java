@@ -0,0 +1,190 @@
+package com.mobydigital.academy.news.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mobydigital.academy.news.dto.CatalogFilter;
+import com.mobydigital.academy.news.dto.NewsDto;
+import com.mobydigital.academy.news.exception.InvalidCursorException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CatalogServiceTest {
+
+    private static final ZonedDateTime BASE = ZonedDateTime.of(2025, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+    private static final CatalogFilter NO_FILTER = new CatalogFilter(null, null, null);
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private ContentfulService contentfulService;
+    private NewsStateStore stateStore;
+    private CatalogService service;
+
+    private final List<NewsDto> news = new ArrayList<>();
+    private final List<NewsDto> fijas = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        contentfulService = mock(ContentfulService.class);
+        stateStore = mock(NewsStateStore.class);
+        when(stateStore.isReady()).thenReturn(true);
+        when(stateStore.byContentType(ContentfulService.CONTENT_TYPE_NEWS)).thenAnswer(inv -> List.copyOf(news));
+        when(stateStore.byContentType(ContentfulService.CONTENT_TYPE_FIJAS)).thenAnswer(inv -> List.copyOf(fijas));
+        service = new CatalogService(contentfulService, stateStore, objectMapper);
+    }
+
+    private static NewsDto entry(String id, int secondsAfterBase) {
+        return NewsDto.builder()
+                .id(id)
+                .active(true)
+                .createdAt(BASE.plusSeconds(secondsAfterBase))
+                .expirationDate(ZonedDateTime.now(ZoneOffset.UTC).plusDays(30))
+                .build();
+    }
+
+    private JsonNode page(CatalogFilter filter, String cursor, int limit) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.streamCatalog(filter, cursor, limit, out);
+        return objectMapper.readTree(out.toByteArray());
+    }
+
+    private static List<String> ids(JsonNode page) {
+        List<String> ids = new ArrayList<>();
+        page.get("items").forEach(item -> ids.add(item.get("id").asText()));
+        return ids;
+    }
+
+    private static String cursor(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void cursorWalksNewsThenFijasUntilTheLastPage() throws Exception {
+        // El mismo segundo se desempata por id
+        news.addAll(List.of(entry("n3", 3), entry("n1", 1), entry("n2b", 2), entry("n2a", 2), entry("n4", 4)));
+        fijas.addAll(List.of(entry("f2", 20), entry("f1", 10)));
+
+        List<String> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            JsonNode page = page(NO_FILTER, cursor, 3);
+            seen.addAll(ids(page));
+            cursor = page.get("nextCursor").isNull() ? null : page.get("nextCursor").asText();
+            pages++;
+        } while (cursor != null && pages < 10);
+
+        assertThat(seen).containsExactly("n1", "n2a", "n2b", "n3", "n4", "f1", "f2");
+        assertThat(cursor).isNull();
+    }
+
+    @Test
+    void keysetDoesNotSkipOrRepeatWhenEntriesChangeBetweenPages() throws Exception {
+        news.addAll(List.of(entry("n1", 1), entry("n2", 2), entry("n3", 3), entry("n4", 4)));
+
+        JsonNode first = page(NO_FILTER, null, 2);
+        assertThat(ids(first)).containsExactly("n1", "n2");
+
+        // Con offset, borrar n1 corría todo una posición y n3 quedaba sin entregar
+        news.remove(0);
+        news.add(entry("n0", 0));
+        news.add(entry("n5", 5));
+
+        JsonNode second = page(NO_FILTER, first.get("nextCursor").asText(), 10);
+        assertThat(ids(second)).containsExactly("n3", "n4", "n5");
+        assertThat(second.get("nextCursor").isNull()).isTrue();
+    }
+
+    @Test
+    void emptyCatalogEndsWithoutCursor() throws Exception {
+        JsonNode page = page(NO_FILTER, null, 10);
+
+        assertThat(ids(page)).isEmpty();
+        assertThat(page.get("nextCursor").isNull()).isTrue();
+    }
+
+    @Test
+    void invalidOrTamperedCursorsAreRejected() {
+        for (String bad : List.of("%%%", cursor("x"), cursor("7"), cursor("-1"), cursor("0:abc:n1"),
+                cursor("0:5"), cursor("0:-5:n1"), cursor("0:5: "))) {
+            assertThatThrownBy(() -> service.checkCursor(bad))
+                    .as(bad)
+                    .isInstanceOf(InvalidCursorException.class);
+        }
+        service.checkCursor(null);
+        service.checkCursor(cursor("1"));
+        service.checkCursor(cursor("0:1735689600:n1"));
+    }
+
+    @Test
+    void expiringBeforeSkipsFijasAndKeepsNewsThatExpireInTime() throws Exception {
+        ZonedDateTime limit = ZonedDateTime.now(ZoneOffset.UTC).plusDays(10);
+        NewsDto soon = entry("soon", 1);
+        soon.setExpirationDate(ZonedDateTime.now(ZoneOffset.UTC).plusDays(2));
+        news.addAll(List.of(soon, entry("later", 2)));
+        fijas.add(entry("f1", 3));
+
+        JsonNode page = page(new CatalogFilter(null, null, limit), null, 10);
+
+        assertThat(ids(page)).containsExactly("soon");
+        assertThat(page.get("nextCursor").isNull()).isTrue();
+        verify(stateStore, never()).byContentType(ContentfulService.CONTENT_TYPE_FIJAS);
+    }
+
+    @Test
+    void cdaPagingResumesFromTheLastCompleteSecond() throws Exception {
+        when(stateStore.isReady()).thenReturn(false);
+        List<NewsDto> full = IntStream.range(0, CatalogService.PAGE_SIZE)
+                .mapToObj(i -> entry(String.format("n%03d", i), i))
+                .toList();
+        when(contentfulService.fetchCatalogPageFrom(eq(ContentfulService.CONTENT_TYPE_NEWS), isNull(), anyInt(), isNull()))
+                .thenReturn(full);
+
+        JsonNode page = page(NO_FILTER, null, 1000);
+
+        // La página llena pierde su último segundo, que se vuelve a pedir con [gte]
+        assertThat(ids(page)).hasSize(CatalogService.PAGE_SIZE - 1);
+        verify(contentfulService).fetchCatalogPageFrom(
+                eq(ContentfulService.CONTENT_TYPE_NEWS), eq(BASE.plusSeconds(CatalogService.PAGE_SIZE - 2)), anyInt(), isNull());
+    }
+
+    @Test
+    void failureMidStreamLeavesTheBodyUnterminated() {
+        when(stateStore.isReady()).thenReturn(false);
+        List<NewsDto> full = IntStream.range(0, CatalogService.PAGE_SIZE)
+                .mapToObj(i -> entry(String.format("n%03d", i), i))
+                .toList();
+        when(contentfulService.fetchCatalogPageFrom(eq(ContentfulService.CONTENT_TYPE_NEWS), isNull(), anyInt(), isNull()))
+                .thenReturn(full);
+        when(contentfulService.fetchCatalogPageFrom(eq(ContentfulService.CONTENT_TYPE_NEWS), any(ZonedDateTime.class), anyInt(), isNull()))
+                .thenThrow(new RuntimeException("CDA caída"));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertThatThrownBy(() -> service.streamCatalog(NO_FILTER, null, 1000, out))
+                .hasMessage("CDA caída");
+
+        // Lo enviado hasta el error no puede leerse como una respuesta completa
+        assertThat(out.toString(StandardCharsets.UTF_8)).contains("\"n000\"");
+        assertThatThrownBy(() -> objectMapper.readTree(out.toByteArray()))
+                .isInstanceOf(JsonProcessingException.class);
+    }
+}
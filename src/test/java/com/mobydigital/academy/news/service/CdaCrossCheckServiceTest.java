@@ -0,0 +1,228 @@
+package com.mobydigital.academy.news.service;
+
+import com.mobydigital.academy.news.dto.NewsDto;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.observation.ObservationView;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CdaCrossCheckServiceTest {
+
+    private static final String NEWS = ContentfulService.CONTENT_TYPE_NEWS;
+
+    private ContentfulService contentfulService;
+    private FeedStateService feedStateService;
+    private NotificationService notificationService;
+    private NewsStateStore stateStore;
+    private CdaCrossCheckService service;
+
+    @BeforeEach
+    void setUp() {
+        contentfulService = mock(ContentfulService.class);
+        feedStateService = mock(FeedStateService.class);
+        notificationService = mock(NotificationService.class);
+        stateStore = new NewsStateStore(new NewsSearchIndex());
+        service = new CdaCrossCheckService(contentfulService, feedStateService, stateStore, notificationService,
+                ObservationRegistry.NOOP);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    private static NewsDto news(String title) {
+        return NewsDto.builder().id("entry-1").title(title).active(true).priority(false).build();
+    }
+
+    private static Optional<ContentfulService.PublishedNews> cda(NewsDto item, int revision) {
+        return Optional.of(new ContentfulService.PublishedNews(item, revision));
+    }
+
+    private static Optional<ContentfulService.PublishedNews> cda(NewsDto item, int revision, String contentType) {
+        return Optional.of(new ContentfulService.PublishedNews(item, revision, contentType));
+    }
+
+    @Test
+    void staleCdaRevisionIsRetriedAndNeverWrittenBack() throws Exception {
+        NewsDto published = news("Título nuevo");
+        when(contentfulService.getPublishedNews("entry-1"))
+                .thenReturn(cda(news("Título viejo"), 3), cda(news("Título nuevo"), 4));
+
+        service.schedule(NEWS, published, 4);
+
+        verify(contentfulService, timeout(3_000).times(2)).getPublishedNews("entry-1");
+        verify(feedStateService, after(300).never()).publishUpsert(any(), any(), any());
+        verify(notificationService, never()).notifyUpsert(any(), any());
+    }
+
+    @Test
+    void caughtUpCdaCopyThatDiffersCorrectsTheState() throws Exception {
+        NewsDto corrected = news("Título corregido");
+        when(contentfulService.getPublishedNews("entry-1")).thenReturn(cda(corrected, 5));
+
+        service.schedule(NEWS, news("Título del payload"), 5);
+
+        verify(feedStateService, timeout(2_000)).publishUpsert(NEWS, corrected, 5);
+        verify(notificationService, timeout(2_000)).notifyUpsert(corrected, "entry-1");
+        // publishUpsert ya invalida la caché del feed
+        verify(contentfulService, never()).evictNewsCache();
+    }
+
+    @Test
+    void retriesRunInsideASingleCrossCheckObservation() throws Exception {
+        ObservationRegistry registry = ObservationRegistry.create();
+        List<String> stopped = new CopyOnWriteArrayList<>();
+        registry.observationConfig()
+                .observationHandler(new ObservationHandler<Observation.Context>() {
+                    @Override
+                    public boolean supportsContext(Observation.Context context) {
+                        return true;
+                    }
+
+                    @Override
+                    public void onStop(Observation.Context context) {
+                        stopped.add(context.getContextualName() != null ? context.getContextualName() : context.getName());
+                    }
+                });
+        CdaCrossCheckService traced = new CdaCrossCheckService(contentfulService, feedStateService, stateStore,
+                notificationService, registry);
+
+        List<String> observedPerAttempt = new CopyOnWriteArrayList<>();
+        when(contentfulService.getPublishedNews("entry-1")).thenAnswer(inv -> {
+            Observation current = registry.getCurrentObservation();
+            ObservationView parent = current == null ? null : current.getContextView().getParentObservation();
+            observedPerAttempt.add(current == null ? "sin observación"
+                    : current.getContextView().getContextualName() + " <- "
+                    + (parent == null ? "sin padre" : parent.getContextView().getName()));
+            return observedPerAttempt.size() < 3 ? cda(news("Título viejo"), 3) : cda(news("Título nuevo"), 4);
+        });
+
+        try {
+            Observation webhook = Observation.start("news.webhook", registry);
+            try (Observation.Scope scope = webhook.openScope()) {
+                traced.schedule(NEWS, news("Título nuevo"), 4);
+            } finally {
+                webhook.stop();
+            }
+
+            verify(contentfulService, timeout(5_000).times(3)).getPublishedNews("entry-1");
+            await(() -> stopped.contains("cdaCrossCheck"));
+        } finally {
+            traced.shutdown();
+        }
+
+        // Los reintentos corren bajo el mismo span, colgado del webhook
+        assertThat(observedPerAttempt).containsOnly("cdaCrossCheck <- news.webhook").hasSize(3);
+        assertThat(stopped).containsExactly("news.webhook", "cdaCrossCheck");
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+
+    @Test
+    void missingPayloadRevisionNeverOverwrites() throws Exception {
+        when(contentfulService.getPublishedNews("entry-1")).thenReturn(cda(news("Otro título"), 2));
+
+        service.schedule(NEWS, news("Título del payload"), null);
+
+        verify(contentfulService, timeout(2_000).times(1)).getPublishedNews("entry-1");
+        verify(feedStateService, after(300).never()).publishUpsert(any(), any(), any());
+    }
+
+    @Test
+    void entryUnpublishedBeforeTheCheckIsNotPublishedAgain() throws Exception {
+        when(contentfulService.getPublishedNews("entry-1")).thenAnswer(inv -> {
+            // El unpublish llegó mientras la CDN todavía servía la revisión publicada
+            stateStore.remove("entry-1", 5);
+            return cda(news("Título corregido"), 5);
+        });
+
+        service.schedule(NEWS, news("Título del payload"), 5);
+
+        verify(contentfulService, timeout(2_000)).getPublishedNews("entry-1");
+        verify(feedStateService, after(300).never()).publishUpsert(any(), any(), any());
+        verify(notificationService, never()).notifyUpsert(any(), any());
+    }
+
+    @Test
+    void cdaWithoutTheEntryAfterEveryAttemptFailsTheObservation() throws Exception {
+        ObservationRegistry registry = ObservationRegistry.create();
+        List<Throwable> errors = new CopyOnWriteArrayList<>();
+        registry.observationConfig()
+                .observationHandler(new ObservationHandler<Observation.Context>() {
+                    @Override
+                    public boolean supportsContext(Observation.Context context) {
+                        return true;
+                    }
+
+                    @Override
+                    public void onError(Observation.Context context) {
+                        errors.add(context.getError());
+                    }
+                });
+        CdaCrossCheckService traced = new CdaCrossCheckService(contentfulService, feedStateService, stateStore,
+                notificationService, registry);
+        ReflectionTestUtils.setField(traced, "initialDelayMs", 1L);
+        when(contentfulService.getPublishedNews("entry-1")).thenReturn(Optional.empty());
+
+        try {
+            traced.schedule(NEWS, news("Título del payload"), 5);
+
+            verify(contentfulService, timeout(2_000).times(5)).getPublishedNews("entry-1");
+            await(() -> !errors.isEmpty());
+        } finally {
+            traced.shutdown();
+        }
+
+        assertThat(errors).singleElement().satisfies(error -> assertThat(error).hasMessageContaining("5 intentos"));
+        verify(feedStateService, never()).publishUpsert(any(), any(), any());
+    }
+
+    @Test
+    void fetchPublishesWithTheContentTypeOfTheCdaEntry() throws Exception {
+        NewsDto fetched = news("Fija");
+        when(contentfulService.getPublishedNews("entry-1"))
+                .thenReturn(Optional.empty(), cda(fetched, 2, ContentfulService.CONTENT_TYPE_FIJAS));
+
+        service.scheduleFetch("entry-1", null, 2);
+
+        verify(feedStateService, timeout(3_000)).publishUpsert(ContentfulService.CONTENT_TYPE_FIJAS, fetched, 2);
+        verify(notificationService, timeout(2_000)).notifyUpsert(fetched, "entry-1");
+    }
+
+    @Test
+    void fetchOfAnotherContentTypeIsDropped() throws Exception {
+        when(contentfulService.getPublishedNews("entry-1")).thenReturn(cda(news("Autor"), 1, "author"));
+
+        service.scheduleFetch("entry-1", null, 1);
+
+        verify(contentfulService, timeout(2_000)).getPublishedNews("entry-1");
+        verify(feedStateService, after(300).never()).publishUpsert(any(), any(), any());
+    }
+}
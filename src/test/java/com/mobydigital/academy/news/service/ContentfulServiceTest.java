@@ -0,0 +1,191 @@
+package com.mobydigital.academy.news.service;
+
+import com.contentful.java.cda.CDAArray;
+import com.contentful.java.cda.CDAClient;
+import com.contentful.java.cda.CDAEntry;
+import com.contentful.java.cda.CDAResource;
+import com.contentful.java.cda.FetchQuery;
+import com.contentful.java.cma.CMAClient;
+import com.mobydigital.academy.news.dto.Audience;
+import com.mobydigital.academy.news.dto.NewsDto;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ContentfulServiceTest {
+
+    private CDAClient client;
+    private NewsMapper newsMapper;
+    private NewsStateStore stateStore;
+    private ContentfulService service;
+
+    @BeforeEach
+    void setUp() {
+        client = mock(CDAClient.class);
+        newsMapper = mock(NewsMapper.class);
+        stateStore = new NewsStateStore(new NewsSearchIndex());
+        service = newService(stateStore);
+    }
+
+    private ContentfulService newService(NewsStateStore store) {
+        ContentfulService contentful = new ContentfulService(client, mock(CMAClient.class), newsMapper, store, ObservationRegistry.NOOP);
+        ReflectionTestUtils.setField(contentful, "snapshotTtl", Duration.ofMinutes(1));
+        return contentful;
+    }
+
+    // Estado listo solo con novedades fijas, cargadas en el orden indicado
+    private static NewsStateStore fijas(List<Integer> order) {
+        NewsStateStore store = new NewsStateStore(new NewsSearchIndex());
+        for (int i : order) {
+            store.upsert(ContentfulService.CONTENT_TYPE_FIJAS, news(String.format("fija-%02d", i), "Fija " + i));
+        }
+        store.markReady();
+        return store;
+    }
+
+    private static List<String> ids(List<NewsDto> feed) {
+        return feed.stream().map(NewsDto::getId).toList();
+    }
+
+    private static NewsDto news(String id, String title) {
+        return NewsDto.builder()
+                .id(id)
+                .title(title)
+                .active(true)
+                .isMobyApp(true)
+                .isMobyWeb(true)
+                .priority(false)
+                .createdAt(ZonedDateTime.now())
+                .build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private FetchQuery<CDAEntry> queryReturning(NewsDto... items) {
+        FetchQuery<CDAEntry> query = mock(FetchQuery.class, RETURNS_SELF);
+        CDAArray array = mock(CDAArray.class);
+        List<CDAResource> entries = new ArrayList<>();
+        for (NewsDto item : items) {
+            CDAEntry entry = mock(CDAEntry.class);
+            when(newsMapper.fromCdaEntry(entry)).thenReturn(item);
+            entries.add(entry);
+        }
+        when(array.items()).thenReturn(entries);
+        when(query.all()).thenReturn(array);
+        return query;
+    }
+
+    @Test
+    void searchUsesTheStateWhenItIsReady() {
+        stateStore.upsert(ContentfulService.CONTENT_TYPE_NEWS, news("1", "Learning Path de Spring"));
+        stateStore.markReady();
+
+        assertThat(service.searchNews("spring", Audience.MOBY_APP, 10)).extracting(NewsDto::getId).containsExactly("1");
+        verify(client, never()).fetch(any());
+    }
+
+    @Test
+    void searchFallsBackToTheCdaWhenTheStateIsNotReady() {
+        FetchQuery<CDAEntry> newsQuery = queryReturning(news("1", "Learning Path de Spring"), news("2", "Charla de Java"));
+        FetchQuery<CDAEntry> fijasQuery = queryReturning(news("3", "Comunidad Spring"));
+        when(client.fetch(CDAEntry.class)).thenReturn(newsQuery, fijasQuery);
+
+        // La CDA prefiltra; el resultado se rankea y filtra igual que en el índice
+        assertThat(service.searchNews("spring", Audience.MOBY_APP, 10)).extracting(NewsDto::getId)
+                .containsExactlyInAnyOrder("1", "3");
+        verify(newsQuery).where("query", "spring");
+        verify(fijasQuery).where("query", "spring");
+    }
+
+    @Test
+    void rotationIsStablePerKeyAndAcrossRebuildsAndReplicas() {
+        List<Integer> ascending = IntStream.range(0, 20).boxed().toList();
+        ContentfulService first = newService(fijas(ascending));
+        ContentfulService replica = newService(fijas(IntStream.range(0, 20).map(i -> 19 - i).boxed().toList()));
+
+        List<String> feed = ids(first.buildFinalNews(Audience.MOBY_APP, "user-42"));
+
+        assertThat(feed).hasSize(8).doesNotHaveDuplicates();
+        assertThat(ids(first.buildFinalNews(Audience.MOBY_APP, "user-42"))).isEqualTo(feed);
+        first.evictNewsCache();
+        assertThat(ids(first.buildFinalNews(Audience.MOBY_APP, "user-42"))).isEqualTo(feed);
+        // Otra réplica que recibió las entradas en otro orden arma el mismo feed
+        assertThat(ids(replica.buildFinalNews(Audience.MOBY_APP, "user-42"))).isEqualTo(feed);
+    }
+
+    @Test
+    void rotationDrawsFromTheWholePool() {
+        ContentfulService contentful = newService(fijas(IntStream.range(0, 20).boxed().toList()));
+
+        Set<String> shown = new HashSet<>();
+        Set<String> shownFirst = new HashSet<>();
+        for (int user = 0; user < 2_000; user++) {
+            List<String> feed = ids(contentful.buildFinalNews(Audience.MOBY_APP, "user-" + user));
+            assertThat(feed).hasSize(8);
+            shown.addAll(feed);
+            shownFirst.add(feed.get(0));
+        }
+
+        // Con el pool recortado antes de rotar solo aparecerían las 8 primeras por id
+        assertThat(shown).hasSize(20);
+        assertThat(shownFirst).hasSize(20);
+    }
+
+    @Test
+    void concurrentRequestsShareASingleSnapshotRebuild() throws Exception {
+        NewsStateStore store = mock(NewsStateStore.class);
+        when(store.isReady()).thenReturn(true);
+        CountDownLatch building = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger builds = new AtomicInteger();
+        when(store.byContentType(ContentfulService.CONTENT_TYPE_NEWS)).thenAnswer(inv -> {
+            builds.incrementAndGet();
+            building.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return List.of(news("1", "Novedad"));
+        });
+        when(store.byContentType(ContentfulService.CONTENT_TYPE_FIJAS)).thenReturn(List.of());
+        ContentfulService contentful = newService(store);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<List<NewsDto>>> feeds = new ArrayList<>();
+            feeds.add(executor.submit(() -> contentful.buildFinalNews(Audience.MOBY_APP, null)));
+            assertThat(building.await(5, TimeUnit.SECONDS)).isTrue();
+            for (int i = 1; i < 8; i++) {
+                feeds.add(executor.submit(() -> contentful.buildFinalNews(Audience.MOBY_APP, null)));
+            }
+            Thread.sleep(200);
+            release.countDown();
+
+            for (Future<List<NewsDto>> feed : feeds) {
+                assertThat(ids(feed.get(5, TimeUnit.SECONDS))).containsExactly("1");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(builds).hasValue(1);
+    }
+}
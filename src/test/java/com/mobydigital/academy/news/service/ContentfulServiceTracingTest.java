@@ -0,0 +1,74 @@
+package com.mobydigital.academy.news.service;
+
+import com.contentful.java.cda.CDAArray;
+import com.contentful.java.cda.CDAClient;
+import com.contentful.java.cda.CDAEntry;
+import com.contentful.java.cda.FetchQuery;
+import com.contentful.java.cma.CMAClient;
+import com.mobydigital.academy.news.dto.Audience;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.tracing.handler.DefaultTracingObservationHandler;
+import io.micrometer.tracing.test.simple.SimpleSpan;
+import io.micrometer.tracing.test.simple.SimpleTracer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Verifica los spans con un tracer en memoria, sin exportador ni contexto de Spring
+class ContentfulServiceTracingTest {
+
+    private SimpleTracer tracer;
+    private CDAClient client;
+    private ContentfulService service;
+
+    @BeforeEach
+    void setUp() {
+        tracer = new SimpleTracer();
+        ObservationRegistry registry = ObservationRegistry.create();
+        registry.observationConfig().observationHandler(new DefaultTracingObservationHandler(tracer));
+
+        client = mock(CDAClient.class);
+        service = new ContentfulService(client, mock(CMAClient.class), mock(NewsMapper.class),
+                new NewsStateStore(new NewsSearchIndex()), registry);
+    }
+
+    @Test
+    void cdaCallIsRecordedAsSpanWithError() {
+        when(client.fetch(CDAEntry.class)).thenThrow(new IllegalStateException("CDA caída"));
+
+        assertThat(service.getNewsById("abc")).isEmpty();
+
+        SimpleSpan span = tracer.onlySpan();
+        assertThat(span.getName()).isEqualTo("contentful.cda getNewsById");
+        assertThat(span.getTags()).containsEntry("operation", "getNewsById");
+        assertThat(span.getError()).hasMessage("CDA caída");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void feedBuildSpanIsParentOfCdaSpans() {
+        FetchQuery<CDAEntry> query = mock(FetchQuery.class, RETURNS_SELF);
+        when(query.all()).thenReturn(mock(CDAArray.class));
+        when(client.fetch(CDAEntry.class)).thenReturn(query);
+
+        service.buildFinalNews(Audience.MOBY_APP);
+
+        List<SimpleSpan> spans = List.copyOf(tracer.getSpans());
+        SimpleSpan build = spans.stream().filter(s -> s.getName().equals("buildFinalNews")).findFirst().orElseThrow();
+        List<SimpleSpan> cdaSpans = spans.stream().filter(s -> s.getName().startsWith("contentful.cda")).toList();
+
+        assertThat(build.getTags()).containsEntry("audience", "MOBY_APP").containsEntry("source", "cda");
+        assertThat(cdaSpans).extracting(SimpleSpan::getName)
+                .containsExactlyInAnyOrder("contentful.cda fetchNews", "contentful.cda fetchExtras");
+        assertThat(cdaSpans).allSatisfy(span -> {
+            assertThat(span.context().traceId()).isEqualTo(build.context().traceId());
+            assertThat(span.context().parentId()).isEqualTo(build.context().spanId());
+        });
+    }
+}
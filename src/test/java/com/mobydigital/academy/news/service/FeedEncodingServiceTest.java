@@ -0,0 +1,133 @@
+package com.mobydigital.academy.news.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mobydigital.academy.news.dto.Audience;
+import com.mobydigital.academy.news.dto.NewsDto;
+import com.mobydigital.academy.news.dto.NewsWireDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FeedEncodingServiceTest {
+
+    private ContentfulService contentfulService;
+    private FeedEncodingService service;
+
+    @BeforeEach
+    void setUp() {
+        contentfulService = mock(ContentfulService.class);
+        service = new FeedEncodingService(contentfulService, new ImageUrlService());
+    }
+
+    private static NewsDto news(int i) {
+        return NewsDto.builder()
+                .id("entry-" + i)
+                .title("Nuevo Learning Path disponible: Spring Boot Avanzado " + i)
+                .active(true)
+                .imageUrl("https://images.ctfassets.net/space/asset-" + i + "/header.jpg")
+                .description("Descubrí nuestro nuevo Learning Path de Spring Boot diseñado para desarrolladores con experiencia.")
+                .isMobyWeb(true)
+                .isMobyApp(true)
+                .url("https://academy.moby.com/news/" + i)
+                .expirationDate(ZonedDateTime.parse("2026-12-31T23:59:59Z"))
+                .createdAt(ZonedDateTime.parse("2026-10-15T09:30:00-03:00"))
+                .priority(i % 2 == 0)
+                .build();
+    }
+
+    private static List<NewsDto> feed(int size) {
+        return IntStream.range(0, size).mapToObj(FeedEncodingServiceTest::news).toList();
+    }
+
+    @Test
+    void negotiateHonoursQualityValues() {
+        assertThat(service.negotiate("application/json;q=0.1, application/cbor")).contains(FeedEncodingService.APPLICATION_CBOR);
+        assertThat(service.negotiate("application/cbor;q=0.2, application/json")).isEmpty();
+        assertThat(service.negotiate("application/x-jackson-smile, application/json")).contains(FeedEncodingService.APPLICATION_SMILE);
+        assertThat(service.negotiate("application/cbor;q=0, application/json;q=0.5")).isEmpty();
+        assertThat(service.negotiate("*/*")).isEmpty();
+        assertThat(service.negotiate(null)).isEmpty();
+    }
+
+    @Test
+    void wireLayoutIsPositionalAndRoundTrips() throws Exception {
+        NewsDto dto = news(1);
+        ObjectMapper cbor = service.mapperFor(FeedEncodingService.APPLICATION_CBOR);
+
+        byte[] bytes = cbor.writeValueAsBytes(List.of(NewsWireDto.from(dto)));
+
+        JsonNode item = cbor.readTree(bytes).get(0);
+        assertThat(item.isArray()).isTrue();
+        assertThat(item.size()).isEqualTo(11);
+        assertThat(item.get(0).asText()).isEqualTo("entry-1");
+        assertThat(item.get(1).asText()).isEqualTo(dto.getTitle());
+        assertThat(item.get(8).asLong()).isEqualTo(dto.getExpirationDate().toInstant().toEpochMilli());
+        assertThat(item.get(9).asLong()).isEqualTo(dto.getCreatedAt().toInstant().toEpochMilli());
+        assertThat(item.get(10).asBoolean()).isFalse();
+
+        NewsWireDto decoded = cbor.readValue(bytes, NewsWireDto[].class)[0];
+        assertThat(decoded).usingRecursiveComparison().isEqualTo(NewsWireDto.from(dto));
+    }
+
+    @Test
+    void encodedBytesAreReusedUntilTheSnapshotIsRebuilt() {
+        ContentfulService.FeedSnapshot first = new ContentfulService.FeedSnapshot(1, Instant.now(), feed(3), List.of());
+        ContentfulService.FeedSnapshot rebuilt = new ContentfulService.FeedSnapshot(1, Instant.now(), feed(2), List.of());
+        when(contentfulService.feedSnapshot(Audience.MOBY_APP)).thenReturn(first, first, rebuilt);
+        when(contentfulService.assemble(any(), any())).thenAnswer(inv -> inv.<ContentfulService.FeedSnapshot>getArgument(0).news());
+
+        byte[] a = service.encode(Audience.MOBY_APP, FeedEncodingService.APPLICATION_CBOR, null, null, null);
+        byte[] b = service.encode(Audience.MOBY_APP, FeedEncodingService.APPLICATION_CBOR, null, null, null);
+        // Misma versión pero snapshot reconstruido por TTL: se vuelve a codificar
+        byte[] c = service.encode(Audience.MOBY_APP, FeedEncodingService.APPLICATION_CBOR, null, null, null);
+
+        assertThat(b).isSameAs(a);
+        assertThat(c).isNotEqualTo(a);
+        verify(contentfulService, times(2)).assemble(any(), any());
+    }
+
+    @Test
+    void feedsCompletedWithFijasAreEncodedOnEveryRequest() {
+        ContentfulService.FeedSnapshot snapshot = new ContentfulService.FeedSnapshot(1, Instant.now(), feed(3), feed(6));
+        when(contentfulService.feedSnapshot(Audience.MOBY_APP)).thenReturn(snapshot);
+        when(contentfulService.assemble(any(), any())).thenAnswer(inv -> inv.<ContentfulService.FeedSnapshot>getArgument(0).news());
+
+        service.encode(Audience.MOBY_APP, FeedEncodingService.APPLICATION_CBOR, null, null, null);
+        service.encode(Audience.MOBY_APP, FeedEncodingService.APPLICATION_CBOR, null, null, null);
+
+        // Cada armado baraja las fijas de nuevo, igual que el feed JSON
+        verify(contentfulService, times(2)).assemble(any(), any());
+    }
+
+    // Solo se comparan tamaños y el round trip; los tiempos dependen de la máquina y no se afirman acá
+    @Test
+    void binaryFeedIsSmallerThanJsonAndRoundTrips() throws Exception {
+        List<NewsDto> news = feed(8);
+        List<NewsWireDto> wire = news.stream().map(NewsWireDto::from).toList();
+        ObjectMapper json = new ObjectMapper().findAndRegisterModules();
+        int jsonSize = json.writeValueAsBytes(news).length;
+
+        for (MediaType type : List.of(FeedEncodingService.APPLICATION_CBOR, FeedEncodingService.APPLICATION_SMILE)) {
+            ObjectMapper mapper = service.mapperFor(type);
+            byte[] bytes = mapper.writeValueAsBytes(wire);
+
+            assertThat((double) bytes.length / jsonSize).as("tamaño relativo a JSON en " + type).isLessThan(0.8);
+            assertThat(mapper.readValue(bytes, NewsWireDto[].class))
+                    .usingRecursiveFieldByFieldElementComparator()
+                    .containsExactlyElementsOf(wire);
+        }
+    }
+}
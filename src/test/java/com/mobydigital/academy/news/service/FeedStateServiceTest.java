@@ -0,0 +1,227 @@
+package com.mobydigital.academy.news.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mobydigital.academy.news.dto.AssetMetadata;
+import com.mobydigital.academy.news.dto.NewsDto;
+import com.mobydigital.academy.news.dto.NewsStateRecord;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FeedStateServiceTest {
+
+    private static final String TOPIC = "news-state";
+    private static final String NEWS = ContentfulService.CONTENT_TYPE_NEWS;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private MockProducer<String, String> producer;
+    private Consumer<String, String> consumer;
+    private ContentfulService contentfulService;
+    private NewsStateStore stateStore;
+    private FeedStateService service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        producer = new MockProducer<>(true, new StringSerializer(), new StringSerializer());
+        ProducerFactory<String, String> producerFactory = mock(ProducerFactory.class);
+        when(producerFactory.createProducer()).thenReturn(producer);
+        consumer = mock(Consumer.class);
+        ConsumerFactory<String, String> consumerFactory = mock(ConsumerFactory.class);
+        when(consumerFactory.createConsumer()).thenReturn(consumer);
+        contentfulService = mock(ContentfulService.class);
+        stateStore = new NewsStateStore(new NewsSearchIndex());
+
+        service = new FeedStateService(new KafkaTemplate<>(producerFactory), consumerFactory, objectMapper,
+                stateStore, contentfulService);
+        ReflectionTestUtils.setField(service, "stateTopic", TOPIC);
+        ReflectionTestUtils.setField(service, "statePartitions", 2);
+        ReflectionTestUtils.setField(service, "sendTimeout", Duration.ofSeconds(1));
+    }
+
+    private void topicWithEndOffsets(long... offsets) {
+        List<PartitionInfo> partitions = IntStream.range(0, offsets.length)
+                .mapToObj(p -> new PartitionInfo(TOPIC, p, null, null, null))
+                .toList();
+        when(consumer.partitionsFor(eq(TOPIC), any(Duration.class))).thenReturn(partitions);
+        Map<TopicPartition, Long> endOffsets = new HashMap<>();
+        for (int p = 0; p < offsets.length; p++) {
+            endOffsets.put(new TopicPartition(TOPIC, p), offsets[p]);
+        }
+        when(consumer.endOffsets(any(), any(Duration.class))).thenReturn(endOffsets);
+    }
+
+    private static NewsDto news(String id) {
+        return NewsDto.builder().id(id).title("Novedad " + id).active(true).build();
+    }
+
+    private ConsumerRecord<String, String> record(int partition, long offset, String key, NewsDto item, Integer revision)
+            throws Exception {
+        String value = item == null ? null
+                : objectMapper.writeValueAsString(new NewsStateRecord(NEWS, item, item.getImage(), revision));
+        return new ConsumerRecord<>(TOPIC, partition, offset, key, value);
+    }
+
+    private ConsumerRecord<String, String> marker(int partition, long offset) {
+        return new ConsumerRecord<>(TOPIC, partition, offset, FeedStateService.SEED_COMPLETE_KEY, "2025-01-01T00:00:00Z");
+    }
+
+    @Test
+    void bootstrapIsReadyOnceEveryPartitionReachesItsEndOffset() throws Exception {
+        topicWithEndOffsets(2, 1);
+
+        service.bootstrap();
+        service.onStateRecord(record(0, 0, "a", news("a"), 1));
+        service.onStateRecord(marker(1, 0));
+        assertThat(stateStore.isReady()).isFalse();
+
+        service.onStateRecord(record(0, 1, "b", news("b"), 3));
+
+        assertThat(stateStore.isReady()).isTrue();
+        assertThat(stateStore.get("b")).hasValueSatisfying(entry -> assertThat(entry.revision()).isEqualTo(3));
+        assertThat(stateStore.get(FeedStateService.SEED_COMPLETE_KEY)).isEmpty();
+        verify(contentfulService, never()).fetchPublishedPage(anyString(), anyInt(), anyInt());
+    }
+
+    @Test
+    void topicWithoutSeedMarkerIsSeededAgain() throws Exception {
+        topicWithEndOffsets(1, 0);
+        when(contentfulService.fetchPublishedPage(eq(NEWS), eq(0), anyInt()))
+                .thenReturn(List.of(new ContentfulService.PublishedNews(news("x"), 4)));
+
+        service.bootstrap();
+        // Siembra anterior cortada: hay entradas pero nunca se escribió la marca
+        service.onStateRecord(record(0, 0, "a", news("a"), 1));
+
+        assertThat(stateStore.isReady()).isTrue();
+        assertThat(stateStore.get("x")).hasValueSatisfying(entry -> assertThat(entry.revision()).isEqualTo(4));
+        List<ProducerRecord<String, String>> sent = producer.history();
+        assertThat(sent).extracting(ProducerRecord::key).containsExactly("x", FeedStateService.SEED_COMPLETE_KEY);
+    }
+
+    @Test
+    void emptyTopicIsSeededAndMarkedAfterEverySend() {
+        topicWithEndOffsets(0, 0);
+        when(contentfulService.fetchPublishedPage(eq(NEWS), eq(0), anyInt()))
+                .thenReturn(List.of(new ContentfulService.PublishedNews(news("x"), 1),
+                        new ContentfulService.PublishedNews(news("y"), 2)));
+
+        service.bootstrap();
+
+        assertThat(stateStore.isReady()).isTrue();
+        assertThat(stateStore.size()).isEqualTo(2);
+        assertThat(producer.history()).extracting(ProducerRecord::key)
+                .containsExactly("x", "y", FeedStateService.SEED_COMPLETE_KEY);
+    }
+
+    @Test
+    void topicWithMorePartitionsThanConfiguredFailsStartup() {
+        topicWithEndOffsets(1, 1, 1);
+
+        assertThatThrownBy(() -> service.bootstrap())
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("3 particiones");
+        assertThat(stateStore.isReady()).isFalse();
+    }
+
+    @Test
+    void withoutKafkaTheStateStaysNotReadyForTheCdaFallback() {
+        when(consumer.partitionsFor(eq(TOPIC), any(Duration.class))).thenThrow(new IllegalStateException("sin broker"));
+
+        service.bootstrap();
+
+        assertThat(stateStore.isReady()).isFalse();
+        assertThat(producer.history()).isEmpty();
+    }
+
+    @Test
+    void tombstoneRemovesTheEntry() throws Exception {
+        stateStore.upsert(NEWS, news("a"), 1);
+        stateStore.markReady();
+
+        service.onStateRecord(record(0, 5, "a", null, null));
+
+        assertThat(stateStore.get("a")).isEmpty();
+        verify(contentfulService).evictNewsCache();
+    }
+
+    @Test
+    void assetChangeRepublishesEveryEntryThatUsesIt() throws Exception {
+        AssetMetadata old = new AssetMetadata("img-1", 1, "//images.ctfassets.net/old.jpg", "image/jpeg", 800);
+        AssetMetadata updated = new AssetMetadata("img-1", 2, "//images.ctfassets.net/new.jpg", "image/jpeg", 800);
+        stateStore.upsert(NEWS, news("a").toBuilder().image(old).imageUrl(old.getUrl()).build(), 7);
+        stateStore.upsert(NEWS, news("b").toBuilder().image(old).imageUrl(old.getUrl()).build(), 3);
+        stateStore.upsert(NEWS, news("c"), 1);
+
+        List<NewsDto> republished = service.publishAssetChange("img-1", updated);
+
+        assertThat(republished).extracting(NewsDto::getId).containsExactlyInAnyOrder("a", "b");
+        assertThat(producer.history()).extracting(ProducerRecord::key).containsExactlyInAnyOrder("a", "b");
+        assertThat(stateStore.get("a")).hasValueSatisfying(entry -> {
+            assertThat(entry.item().getImageUrl()).isEqualTo(updated.getUrl());
+            assertThat(entry.revision()).isEqualTo(7);
+        });
+        assertThat(stateStore.withAsset("img-1")).hasSize(2);
+    }
+
+    @Test
+    void reconcileRepublishesNewerRevisionsAndRemovesAfterTwoMisses() {
+        stateStore.upsert(NEWS, news("a"), 1);
+        stateStore.upsert(NEWS, news("b"), 2);
+        stateStore.upsert(NEWS, news("c"), 5);
+        stateStore.markReady();
+        NewsDto newerA = news("a").toBuilder().title("Título nuevo").build();
+        // La CDN todavía sirve la revisión 4 de c: no debe pisar la 5
+        when(contentfulService.fetchPublishedPage(eq(NEWS), eq(0), anyInt())).thenReturn(List.of(
+                new ContentfulService.PublishedNews(newerA, 2),
+                new ContentfulService.PublishedNews(news("c").toBuilder().title("Viejo").build(), 4),
+                new ContentfulService.PublishedNews(news("d"), 1)));
+
+        service.reconcile();
+
+        assertThat(stateStore.get("a")).hasValueSatisfying(entry -> assertThat(entry.item().getTitle()).isEqualTo("Título nuevo"));
+        assertThat(stateStore.get("c")).hasValueSatisfying(entry -> assertThat(entry.revision()).isEqualTo(5));
+        assertThat(stateStore.get("d")).isPresent();
+        assertThat(stateStore.get("b")).isPresent();
+
+        service.reconcile();
+
+        assertThat(stateStore.get("b")).isEmpty();
+        assertThat(producer.history()).extracting(ProducerRecord::key).containsExactly("a", "d", "b");
+        assertThat(producer.history().get(2).value()).isNull();
+    }
+
+    @Test
+    void reconcileWaitsUntilTheStateIsReady() {
+        service.reconcile();
+
+        verify(contentfulService, never()).fetchPublishedPage(anyString(), anyInt(), anyInt());
+    }
+}
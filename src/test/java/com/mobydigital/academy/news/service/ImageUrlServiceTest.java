@@ -0,0 +1,102 @@
+package com.mobydigital.academy.news.service;
+
+import com.mobydigital.academy.news.dto.AssetMetadata;
+import com.mobydigital.academy.news.dto.ImageFormat;
+import com.mobydigital.academy.news.dto.ImageSize;
+import com.mobydigital.academy.news.dto.NewsDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ImageUrlServiceTest {
+
+    private static final String ASSET_URL = "//images.ctfassets.net/space/img-1/header.jpg";
+
+    private ImageUrlService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new ImageUrlService();
+        ReflectionTestUtils.setField(service, "quality", 75);
+    }
+
+    private static AssetMetadata image(String contentType, Integer width) {
+        return new AssetMetadata("img-1", 1, ASSET_URL, contentType, width);
+    }
+
+    @Test
+    void sizeForPicksTheSmallestBucketThatCoversTheWidth() {
+        assertThat(ImageUrlService.sizeFor(300, null)).isEqualTo(ImageSize.SMALL);
+        assertThat(ImageUrlService.sizeFor(320, 1.0)).isEqualTo(ImageSize.SMALL);
+        assertThat(ImageUrlService.sizeFor(321, 1.0)).isEqualTo(ImageSize.MEDIUM);
+        assertThat(ImageUrlService.sizeFor(360, 3.0)).isEqualTo(ImageSize.LARGE);
+        assertThat(ImageUrlService.sizeFor(5_000, 1.0)).isEqualTo(ImageSize.XLARGE);
+        assertThat(ImageUrlService.sizeFor(null, 2.0)).isNull();
+        assertThat(ImageUrlService.sizeFor(0, 2.0)).isNull();
+    }
+
+    @Test
+    void sizeForClampsTheDevicePixelRatio() {
+        // DPR 10 se trata como 4: 200 * 4 = 800 -> LARGE
+        assertThat(ImageUrlService.sizeFor(200, 10.0)).isEqualTo(ImageSize.LARGE);
+        // DPR inválido se trata como 1
+        assertThat(ImageUrlService.sizeFor(300, -2.0)).isEqualTo(ImageSize.SMALL);
+        assertThat(ImageUrlService.sizeFor(300, 0.0)).isEqualTo(ImageSize.SMALL);
+    }
+
+    @Test
+    void formatParsingIsTolerant() {
+        assertThat(ImageFormat.from("webp")).isEqualTo(ImageFormat.WEBP);
+        assertThat(ImageFormat.from(" AVIF ")).isEqualTo(ImageFormat.AVIF);
+        assertThat(ImageFormat.from("image/png")).isEqualTo(ImageFormat.PNG);
+        assertThat(ImageFormat.from("tiff")).isNull();
+        // Un Accept completo no es un formato: se ignora en vez de fallar
+        assertThat(ImageFormat.from("image/avif,image/webp,*/*;q=0.8")).isNull();
+        assertThat(ImageFormat.from("")).isNull();
+        assertThat(ImageFormat.from(null)).isNull();
+    }
+
+    @Test
+    void urlCarriesQualityWidthAndFormat() {
+        assertThat(service.urlFor(image("image/jpeg", 1600), ImageSize.MEDIUM, ImageFormat.WEBP))
+                .isEqualTo("https:" + ASSET_URL + "?q=75&w=640&fm=webp");
+        assertThat(service.urlFor(image("image/jpeg", 1600), null, ImageFormat.AVIF))
+                .isEqualTo("https:" + ASSET_URL + "?q=75&fm=avif");
+        // Sin ancho conocido se pide el del bucket
+        assertThat(service.urlFor(image("image/jpeg", null), ImageSize.SMALL, null))
+                .isEqualTo("https:" + ASSET_URL + "?q=75&w=320");
+    }
+
+    @Test
+    void urlNeverUpscalesTheOriginal() {
+        assertThat(service.urlFor(image("image/png", 800), ImageSize.XLARGE, null))
+                .isEqualTo("https:" + ASSET_URL + "?q=75");
+    }
+
+    @Test
+    void nonTransformableAssetsKeepTheirUrl() {
+        assertThat(service.urlFor(image("image/svg+xml", 800), ImageSize.SMALL, ImageFormat.WEBP)).isNull();
+        assertThat(service.urlFor(image("image/gif", 800), ImageSize.SMALL, ImageFormat.WEBP)).isNull();
+        assertThat(service.urlFor(image("application/pdf", null), ImageSize.SMALL, null)).isNull();
+        assertThat(service.urlFor(null, ImageSize.SMALL, null)).isNull();
+        assertThat(service.urlFor(image("image/jpeg", 800), null, null)).isNull();
+    }
+
+    @Test
+    void adaptReturnsCopiesAndLeavesTheCachedListUntouched() {
+        NewsDto withImage = NewsDto.builder().id("1").imageUrl("https:" + ASSET_URL).image(image("image/jpeg", 1600)).build();
+        NewsDto withoutImage = NewsDto.builder().id("2").build();
+        List<NewsDto> cached = List.of(withImage, withoutImage);
+
+        List<NewsDto> adapted = service.adapt(cached, ImageSize.SMALL, ImageFormat.WEBP);
+
+        assertThat(adapted.get(0).getImageUrl()).isEqualTo("https:" + ASSET_URL + "?q=75&w=320&fm=webp");
+        assertThat(adapted.get(1)).isSameAs(withoutImage);
+        assertThat(withImage.getImageUrl()).isEqualTo("https:" + ASSET_URL);
+        assertThat(service.adapt(cached, null, null)).isSameAs(cached);
+    }
+}
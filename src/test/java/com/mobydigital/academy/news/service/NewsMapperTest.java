@@ -0,0 +1,109 @@
+package com.mobydigital.academy.news.service;
+
+import com.contentful.java.cda.CDAAsset;
+import com.contentful.java.cda.CDAEntry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mobydigital.academy.news.dto.AssetMetadata;
+import com.mobydigital.academy.news.dto.NewsDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// El payload del webhook (CMA, campos por locale) y la entrada de la CDA deben mapear al mismo NewsDto
+class NewsMapperTest {
+
+    private static final String CREATED_AT = "2025-10-15T12:30:00.123Z";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private AssetCacheService assetCacheService;
+    private NewsMapper mapper;
+
+    @BeforeEach
+    void setUp() {
+        assetCacheService = mock(AssetCacheService.class);
+        mapper = new NewsMapper(assetCacheService);
+        ReflectionTestUtils.setField(mapper, "locale", "en-US");
+    }
+
+    private static CDAEntry cdaEntry(Map<String, Object> fields, CDAAsset image) {
+        CDAEntry entry = mock(CDAEntry.class);
+        when(entry.id()).thenReturn("entry-1");
+        doReturn(CREATED_AT).when(entry).getAttribute("createdAt");
+        fields.forEach((name, value) -> doReturn(value).when(entry).getField(name));
+        doReturn(image).when(entry).getField("image");
+        return entry;
+    }
+
+    private NewsDto fromPayload(String fieldsJson) throws Exception {
+        String payload = "{\"sys\": {\"id\": \"entry-1\", \"type\": \"Entry\", \"revision\": 3, \"createdAt\": \""
+                + CREATED_AT + "\"}, \"fields\": " + fieldsJson + "}";
+        return mapper.fromManagementPayload(objectMapper.readTree(payload));
+    }
+
+    @Test
+    void fullEntryMapsTheSameFromPayloadAndCda() throws Exception {
+        AssetMetadata image = new AssetMetadata("img-1", 2, "//images.ctfassets.net/space/img-1/header.jpg", "image/jpeg", 1600);
+        CDAAsset asset = mock(CDAAsset.class);
+        when(assetCacheService.resolve(asset)).thenReturn(image);
+        when(assetCacheService.resolveById("img-1")).thenReturn(image);
+
+        NewsDto fromCda = mapper.fromCdaEntry(cdaEntry(Map.of(
+                "title", "Hackathon de verano",
+                "is_active", true,
+                NewsMapper.EXPIRATION_DATE_FIELD, "2025-12-31T23:59-03:00",
+                "isMobyWeb", true,
+                "isMobyApp", false,
+                "description", "Inscripciones abiertas",
+                "url", "https://academy.moby.com/hackathon",
+                "priority", true), asset));
+
+        // Los demás locales se ignoran, igual que en la CDA configurada con en-US
+        NewsDto fromPayload = fromPayload("""
+                {"title": {"en-US": "Hackathon de verano", "es-AR": "Hackatón de verano"},
+                 "is_active": {"en-US": true},
+                 "expiration_date": {"en-US": "2025-12-31T23:59-03:00"},
+                 "isMobyWeb": {"en-US": true},
+                 "isMobyApp": {"en-US": false},
+                 "description": {"en-US": "Inscripciones abiertas"},
+                 "url": {"en-US": "https://academy.moby.com/hackathon"},
+                 "priority": {"en-US": true},
+                 "image": {"en-US": {"sys": {"type": "Link", "linkType": "Asset", "id": "img-1"}}}}
+                """);
+
+        assertThat(fromPayload).usingRecursiveComparison().isEqualTo(fromCda);
+        assertThat(fromPayload.getImageUrl()).isEqualTo(image.getUrl());
+        assertThat(fromPayload.getExpirationDate().toInstant())
+                .isEqualTo(java.time.Instant.parse("2026-01-01T02:59:00Z"));
+    }
+
+    @Test
+    void entryWithoutImageOrOptionalFieldsMapsTheSame() throws Exception {
+        NewsDto fromCda = mapper.fromCdaEntry(cdaEntry(Map.of("title", "Charla de Java", "is_active", true), null));
+
+        // Campo presente solo en otro locale: se trata como ausente
+        NewsDto fromPayload = fromPayload("""
+                {"title": {"en-US": "Charla de Java"},
+                 "is_active": {"en-US": true},
+                 "description": {"es-AR": "Solo en español"}}
+                """);
+
+        assertThat(fromPayload).usingRecursiveComparison().isEqualTo(fromCda);
+        assertThat(fromPayload.getImageUrl()).isNull();
+        assertThat(fromPayload.getImage()).isNull();
+        assertThat(fromPayload.getDescription()).isNull();
+        assertThat(fromPayload.getExpirationDate()).isNull();
+        assertThat(fromPayload.getPriority()).isFalse();
+    }
+
+    @Test
+    void payloadWithoutFieldsIsNotMapped() throws Exception {
+        assertThat(mapper.fromManagementPayload(objectMapper.readTree("{\"sys\": {\"id\": \"entry-1\"}}"))).isNull();
+    }
+}
@@ -0,0 +1,127 @@
+package com.mobydigital.academy.news.service;
+
+import com.mobydigital.academy.news.dto.Audience;
+import com.mobydigital.academy.news.dto.NewsDto;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZonedDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NewsSearchIndexTest {
+
+    private static final String NEWS = ContentfulService.CONTENT_TYPE_NEWS;
+
+    private static NewsDto news(String id, String title, String description, boolean app, boolean web) {
+        return NewsDto.builder()
+                .id(id)
+                .title(title)
+                .description(description)
+                .active(true)
+                .isMobyApp(app)
+                .isMobyWeb(web)
+                .priority(false)
+                .createdAt(ZonedDateTime.now())
+                .build();
+    }
+
+    @Test
+    void searchIgnoresAccentsAndCase() {
+        NewsSearchIndex index = new NewsSearchIndex();
+        index.upsert(NEWS, news("1", "Nueva información sobre el Año Académico", null, true, true));
+
+        assertThat(index.search("INFORMACION ano", null, 10)).extracting(NewsDto::getId).containsExactly("1");
+    }
+
+    @Test
+    void searchMatchesPrefixesOfAllTerms() {
+        NewsSearchIndex index = new NewsSearchIndex();
+        index.upsert(NEWS, news("1", "Learning Path de Spring Boot", null, true, true));
+        index.upsert(NEWS, news("2", "Learning Path de Angular", "Incluye Spring en el backend", true, true));
+        index.upsert(NEWS, news("3", "Charla de Java", null, true, true));
+
+        // Primero la que matchea en el título
+        assertThat(index.search("learn spri", null, 10)).extracting(NewsDto::getId).containsExactly("1", "2");
+        assertThat(index.search("kotlin", null, 10)).isEmpty();
+    }
+
+    @Test
+    void searchFiltersByAudienceAndInactiveNews() {
+        NewsSearchIndex index = new NewsSearchIndex();
+        index.upsert(NEWS, news("app", "Evento", null, true, false));
+        index.upsert(NEWS, news("web", "Evento", null, false, true));
+        NewsDto inactive = news("off", "Evento", null, true, true);
+        inactive.setActive(false);
+        index.upsert(NEWS, inactive);
+
+        assertThat(index.search("evento", Audience.MOBY_APP, 10)).extracting(NewsDto::getId).containsExactly("app");
+        assertThat(index.search("evento", Audience.MOBY_WEB, 10)).extracting(NewsDto::getId).containsExactly("web");
+    }
+
+    @Test
+    void upsertAndRemoveUpdateTheIndexIncrementally() {
+        NewsSearchIndex index = new NewsSearchIndex();
+        index.upsert(NEWS, news("1", "Hackathon de invierno", null, true, true));
+        index.upsert(NEWS, news("1", "Hackathon de verano", null, true, true));
+
+        assertThat(index.search("invierno", null, 10)).isEmpty();
+        assertThat(index.search("verano", null, 10)).hasSize(1);
+
+        index.remove("1");
+        assertThat(index.search("hackathon", null, 10)).isEmpty();
+        assertThat(index.size()).isZero();
+    }
+
+    @Test
+    void shortTermsMatchWholeWordsOnly() {
+        NewsSearchIndex index = new NewsSearchIndex();
+        index.upsert(NEWS, news("1", "Charla de Java", null, true, true));
+        index.upsert(NEWS, news("2", "Desarrollo web", null, true, true));
+
+        assertThat(index.search("de", null, 10)).extracting(NewsDto::getId).containsExactly("1");
+        assertThat(index.search("des", null, 10)).extracting(NewsDto::getId).containsExactly("2");
+    }
+
+    @Test
+    void prefixBeyondTheExpansionCapStillRanksEveryMatch() {
+        NewsSearchIndex index = new NewsSearchIndex();
+        for (int i = 0; i < NewsSearchIndex.MAX_PREFIX_EXPANSION + 50; i++) {
+            NewsDto dto = news(String.valueOf(i), String.format("evento%04d", i), null, true, true);
+            // Fuera de las primeras palabras del índice, pero la mejor rankeada
+            dto.setPriority(i == 300);
+            index.upsert(NEWS, dto);
+        }
+
+        assertThat(index.search("evento", null, 1_000)).hasSize(NewsSearchIndex.MAX_PREFIX_EXPANSION + 50);
+        assertThat(index.search("evento", null, 5)).extracting(NewsDto::getId).startsWith("300");
+        assertThat(index.search("evento0300", null, 10)).extracting(NewsDto::getId).containsExactly("300");
+    }
+
+    @Test
+    void broadPrefixIsVerifiedAgainstTheCandidatesOfASelectiveTerm() {
+        NewsSearchIndex index = new NewsSearchIndex();
+        for (int i = 0; i < NewsSearchIndex.MAX_PREFIX_EXPANSION + 50; i++) {
+            String extra = (i == 280) ? " hackathon" : "";
+            index.upsert(NEWS, news(String.valueOf(i), String.format("evento%04d", i) + extra, null, true, true));
+        }
+
+        assertThat(index.search("evento hackathon", null, 10)).extracting(NewsDto::getId).containsExactly("280");
+    }
+
+    // 100k entradas: una consulta selectiva encuentra su entrada aunque el otro término sea muy frecuente.
+    // Sin aserciones de tiempo: la latencia se mide fuera de los tests unitarios
+    @Test
+    void selectiveSearchOverOneHundredThousandEntries() {
+        NewsSearchIndex index = new NewsSearchIndex();
+        String[] words = {"spring", "java", "evento", "información", "capacitación", "angular", "charla", "moby"};
+        for (int i = 0; i < 100_000; i++) {
+            String title = words[i % words.length] + " " + words[(i / 8) % words.length] + " número " + i;
+            index.upsert(NEWS, news(String.valueOf(i), title, "Descripción de la novedad " + i, true, true));
+        }
+
+        // "capacitacion" aparece en más de 20k entradas; el número identifica una sola
+        assertThat(index.size()).isEqualTo(100_000);
+        assertThat(index.search("capacitacion 99996", null, 20)).extracting(NewsDto::getId).containsExactly("99996");
+        assertThat(index.search("capacitacion 99997", null, 20)).isEmpty();
+    }
+}
@@ -0,0 +1,98 @@
+package com.mobydigital.academy.news.service;
+
+import com.mobydigital.academy.news.dto.AssetMetadata;
+import com.mobydigital.academy.news.dto.Audience;
+import com.mobydigital.academy.news.dto.NewsDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NewsStateStoreTest {
+
+    private static final String NEWS = ContentfulService.CONTENT_TYPE_NEWS;
+    private static final String FIJAS = ContentfulService.CONTENT_TYPE_FIJAS;
+
+    private NewsStateStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new NewsStateStore(new NewsSearchIndex());
+    }
+
+    private static NewsDto news(String id, String title, String assetId) {
+        return NewsDto.builder()
+                .id(id)
+                .title(title)
+                .active(true)
+                .isMobyApp(true)
+                .isMobyWeb(true)
+                .image(assetId == null ? null : new AssetMetadata(assetId, 1, "//images.ctfassets.net/" + assetId, "image/png", 640))
+                .build();
+    }
+
+    @Test
+    void upsertKeepsTheLatestVersionWithItsRevision() {
+        store.upsert(NEWS, news("a", "Primera", null), 1);
+        store.upsert(NEWS, news("a", "Segunda", null), 2);
+
+        assertThat(store.size()).isEqualTo(1);
+        assertThat(store.get("a")).hasValueSatisfying(entry -> {
+            assertThat(entry.item().getTitle()).isEqualTo("Segunda");
+            assertThat(entry.revision()).isEqualTo(2);
+            assertThat(entry.contentType()).isEqualTo(NEWS);
+        });
+    }
+
+    @Test
+    void removeReturnsTheLastKnownVersionAndClearsTheSearchIndex() {
+        store.upsert(NEWS, news("a", "Charla de Spring", null), 1);
+
+        assertThat(store.remove("a").getTitle()).isEqualTo("Charla de Spring");
+        assertThat(store.get("a")).isEmpty();
+        assertThat(store.search("spring", Audience.MOBY_APP, 10)).isEmpty();
+        assertThat(store.remove("a")).isNull();
+    }
+
+    @Test
+    void revisionsUpToTheUnpublishOrBehindTheStateAreSuperseded() {
+        store.upsert(NEWS, news("a", "A", null), 3);
+        assertThat(store.isSuperseded("a", 2)).isTrue();
+        assertThat(store.isSuperseded("a", 3)).isFalse();
+
+        store.remove("a", 3);
+        // El tombstone replicado no trae revisión y no pisa la del unpublish
+        store.remove("a");
+        assertThat(store.isSuperseded("a", 3)).isTrue();
+        assertThat(store.isSuperseded("a", 4)).isFalse();
+
+        store.upsert(NEWS, news("a", "A", null), 4);
+        assertThat(store.isSuperseded("a", 4)).isFalse();
+        assertThat(store.isSuperseded("b", 1)).isFalse();
+    }
+
+    @Test
+    void assetIndexFollowsTheCurrentImage() {
+        store.upsert(NEWS, news("a", "A", "img-1"));
+        store.upsert(FIJAS, news("b", "B", "img-1"));
+        store.upsert(NEWS, news("a", "A", "img-2"));
+
+        assertThat(store.withAsset("img-1")).extracting(entry -> entry.item().getId()).containsExactly("b");
+        assertThat(store.withAsset("img-2")).extracting(entry -> entry.item().getId()).containsExactly("a");
+
+        store.remove("b");
+        assertThat(store.withAsset("img-1")).isEmpty();
+    }
+
+    @Test
+    void entriesAreSplitByContentType() {
+        store.upsert(NEWS, news("a", "A", null));
+        store.upsert(FIJAS, news("b", "B", null));
+
+        assertThat(store.byContentType(NEWS)).extracting(NewsDto::getId).containsExactly("a");
+        assertThat(store.entriesOf(FIJAS)).extracting(entry -> entry.item().getId()).containsExactly("b");
+        assertThat(store.isReady()).isFalse();
+        store.markReady();
+        assertThat(store.isReady()).isTrue();
+    }
+}
@@ -0,0 +1,78 @@
+package com.mobydigital.academy.news.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mobydigital.academy.news.dto.Audience;
+import com.mobydigital.academy.news.dto.NewsDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class StaleFeedServiceTest {
+
+    private ContentfulService contentfulService;
+    private FeedEncodingService feedEncodingService;
+    private StaleFeedService service;
+
+    @BeforeEach
+    void setUp() {
+        contentfulService = mock(ContentfulService.class);
+        feedEncodingService = mock(FeedEncodingService.class);
+        ImageUrlService imageUrlService = mock(ImageUrlService.class);
+        when(imageUrlService.adapt(any(), any(), any())).thenAnswer(inv -> inv.getArgument(0));
+        service = new StaleFeedService(contentfulService, imageUrlService, feedEncodingService,
+                new ObjectMapper().findAndRegisterModules());
+    }
+
+    private static MockHttpServletRequest feedRequest(String accept) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/contentful/news/app");
+        if (accept != null) request.addHeader(HttpHeaders.ACCEPT, accept);
+        request.setParameter("rotationKey", "user-42");
+        return request;
+    }
+
+    @Test
+    void staleFeedIsMarkedAndVariesByAccept() throws Exception {
+        when(contentfulService.staleFinalNews(Audience.MOBY_APP, "user-42"))
+                .thenReturn(Optional.of(List.of(NewsDto.builder().id("1").title("Novedad").build())));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertThat(service.write(Audience.MOBY_APP, feedRequest("application/json"), response)).isTrue();
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentType()).startsWith("application/json");
+        assertThat(response.getHeader(HttpHeaders.VARY)).isEqualTo(HttpHeaders.ACCEPT);
+        assertThat(response.getHeader("Warning")).contains("110");
+        assertThat(response.getContentAsString()).contains("\"id\":\"1\"");
+    }
+
+    @Test
+    void binaryFeedsAreNotServedStale() throws Exception {
+        when(feedEncodingService.negotiate(FeedEncodingService.APPLICATION_CBOR_VALUE))
+                .thenReturn(Optional.of(FeedEncodingService.APPLICATION_CBOR));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertThat(service.write(Audience.MOBY_APP, feedRequest(FeedEncodingService.APPLICATION_CBOR_VALUE), response))
+                .isFalse();
+        assertThat(response.isCommitted()).isFalse();
+        assertThat(response.getHeader(HttpHeaders.VARY)).isNull();
+    }
+
+    @Test
+    void withoutSnapshotNothingIsWritten() throws Exception {
+        when(contentfulService.staleFinalNews(Audience.MOBY_APP, "user-42")).thenReturn(Optional.empty());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertThat(service.write(Audience.MOBY_APP, feedRequest(null), response)).isFalse();
+        assertThat(response.getContentAsString()).isEmpty();
+    }
+}
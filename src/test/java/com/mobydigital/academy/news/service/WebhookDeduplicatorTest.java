@@ -0,0 +1,206 @@
+package com.mobydigital.academy.news.service;
+
+import com.mobydigital.academy.news.dto.WebhookEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static com.mobydigital.academy.news.service.WebhookDeduplicator.Claim.ACQUIRED;
+import static com.mobydigital.academy.news.service.WebhookDeduplicator.Claim.DUPLICATE;
+import static com.mobydigital.academy.news.service.WebhookDeduplicator.Claim.IN_FLIGHT;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class WebhookDeduplicatorTest {
+
+    private static final String PUBLISH = "ContentManagement.Entry.publish";
+    private static final String UNPUBLISH = "ContentManagement.Entry.unpublish";
+
+    private WebhookDeduplicator deduplicator;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        deduplicator = new WebhookDeduplicator(100, Duration.ofHours(24), Duration.ofMinutes(5), false,
+                mock(ObjectProvider.class));
+    }
+
+    private static WebhookEvent event(String topic, String deliveryId, Integer revision) {
+        return new WebhookEvent(topic, deliveryId, "entry-1", revision, "news");
+    }
+
+    @Test
+    void redeliveryAfterProcessingIsDuplicate() {
+        WebhookEvent event = event(PUBLISH, "delivery-1", 3);
+        assertThat(deduplicator.tryClaim(event)).isEqualTo(ACQUIRED);
+        deduplicator.markProcessed(event);
+
+        assertThat(deduplicator.tryClaim(event(PUBLISH, "delivery-1", 3))).isEqualTo(DUPLICATE);
+    }
+
+    private void process(WebhookEvent event) {
+        assertThat(deduplicator.tryClaim(event)).isEqualTo(ACQUIRED);
+        deduplicator.markProcessed(event);
+    }
+
+    @Test
+    void olderOrEqualRevisionsOfTheEntityAreDuplicates() {
+        process(event(PUBLISH, "delivery-1", 5));
+
+        assertThat(deduplicator.tryClaim(event(PUBLISH, "delivery-2", 4))).isEqualTo(DUPLICATE);
+        assertThat(deduplicator.tryClaim(event(PUBLISH, "delivery-3", 5))).isEqualTo(DUPLICATE);
+        // El unpublish lleva la misma revisión que el último publish y no debe descartarse
+        process(event(UNPUBLISH, "delivery-4", 5));
+        assertThat(deduplicator.tryClaim(event(PUBLISH, "delivery-5", 6))).isEqualTo(ACQUIRED);
+    }
+
+    @Test
+    void latePublishAfterAProcessedUnpublishIsRejected() {
+        process(event(UNPUBLISH, "delivery-1", 5));
+
+        // El publish de la revisión 5 llegó tarde: no debe volver a publicar una entrada ya retirada
+        assertThat(deduplicator.tryClaim(event(PUBLISH, "delivery-2", 5))).isEqualTo(DUPLICATE);
+        assertThat(deduplicator.tryClaim(event(PUBLISH, "delivery-3", 4))).isEqualTo(DUPLICATE);
+        assertThat(deduplicator.tryClaim(event(UNPUBLISH, "delivery-4", 5))).isEqualTo(DUPLICATE);
+        // Una publicación nueva sí vuelve a publicar
+        assertThat(deduplicator.tryClaim(event(PUBLISH, "delivery-5", 6))).isEqualTo(ACQUIRED);
+    }
+
+    @Test
+    void eventsOfOneEntityWaitForTheOneInFlight() {
+        WebhookEvent publish = event(PUBLISH, "delivery-1", 5);
+        assertThat(deduplicator.tryClaim(publish)).isEqualTo(ACQUIRED);
+
+        assertThat(deduplicator.tryClaim(event(UNPUBLISH, "delivery-2", 5))).isEqualTo(IN_FLIGHT);
+        // Otra entidad no espera
+        assertThat(deduplicator.tryClaim(new WebhookEvent(PUBLISH, "delivery-3", "entry-2", 5, "news"))).isEqualTo(ACQUIRED);
+
+        deduplicator.markProcessed(publish);
+        assertThat(deduplicator.tryClaim(event(UNPUBLISH, "delivery-2", 5))).isEqualTo(ACQUIRED);
+    }
+
+    @Test
+    void redeliveryWhileInFlightIsNotProcessedTwice() {
+        WebhookEvent original = event(PUBLISH, "delivery-1", 7);
+        assertThat(deduplicator.tryClaim(original)).isEqualTo(ACQUIRED);
+
+        assertThat(deduplicator.tryClaim(event(PUBLISH, "delivery-1", 7))).isEqualTo(IN_FLIGHT);
+        // Otra entrega del mismo evento (distinto delivery id, misma revisión)
+        assertThat(deduplicator.tryClaim(event(PUBLISH, "delivery-2", 7))).isEqualTo(IN_FLIGHT);
+
+        deduplicator.markProcessed(original);
+        assertThat(deduplicator.tryClaim(event(PUBLISH, "delivery-1", 7))).isEqualTo(DUPLICATE);
+    }
+
+    @Test
+    void failedProcessingReleasesTheClaimForContentfulRetry() {
+        WebhookEvent event = event(PUBLISH, "delivery-1", 2);
+        assertThat(deduplicator.tryClaim(event)).isEqualTo(ACQUIRED);
+
+        deduplicator.release(event);
+
+        assertThat(deduplicator.tryClaim(event(PUBLISH, "delivery-1", 2))).isEqualTo(ACQUIRED);
+    }
+
+    @Test
+    void concurrentDeliveriesClaimOnlyOnce() throws Exception {
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Callable<WebhookDeduplicator.Claim>> tasks = IntStream.range(0, threads)
+                    .<Callable<WebhookDeduplicator.Claim>>mapToObj(i -> () -> {
+                        start.await();
+                        return deduplicator.tryClaim(event(PUBLISH, "delivery-" + i, 9));
+                    })
+                    .toList();
+            List<Future<WebhookDeduplicator.Claim>> futures = tasks.stream().map(executor::submit).toList();
+            start.countDown();
+
+            long acquired = 0;
+            for (Future<WebhookDeduplicator.Claim> future : futures) {
+                if (future.get() == ACQUIRED) acquired++;
+            }
+            assertThat(acquired).isEqualTo(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void eventsWithoutIdsAreAlwaysProcessed() {
+        WebhookEvent anonymous = new WebhookEvent(PUBLISH, null, null, null, null);
+        assertThat(deduplicator.tryClaim(anonymous)).isEqualTo(ACQUIRED);
+        assertThat(deduplicator.tryClaim(anonymous)).isEqualTo(ACQUIRED);
+    }
+
+    @Test
+    void eventsWithoutRevisionAreDeduplicatedByDelivery() {
+        WebhookEvent save = event("ContentManagement.Entry.save", "delivery-1", null);
+        assertThat(deduplicator.tryClaim(save)).isEqualTo(ACQUIRED);
+        assertThat(deduplicator.tryClaim(save)).isEqualTo(IN_FLIGHT);
+
+        deduplicator.markProcessed(save);
+        assertThat(deduplicator.tryClaim(save)).isEqualTo(DUPLICATE);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void memoryStaysBounded() {
+        WebhookDeduplicator small = new WebhookDeduplicator(10, Duration.ofHours(24), Duration.ofMinutes(5), false,
+                mock(ObjectProvider.class));
+        for (int i = 0; i < 50; i++) {
+            WebhookEvent event = new WebhookEvent(PUBLISH, "delivery-" + i, "entry-" + i, 1, "news");
+            small.tryClaim(event);
+            small.markProcessed(event);
+        }
+
+        // Las más recientes se siguen reconociendo
+        assertThat(small.tryClaim(new WebhookEvent(PUBLISH, "delivery-x", "entry-49", 1, "news"))).isEqualTo(DUPLICATE);
+        assertThat(small.tryClaim(new WebhookEvent(PUBLISH, "delivery-y", "entry-0", 1, "news"))).isEqualTo(ACQUIRED);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void redisDecidesAcrossReplicas() {
+        StringRedisTemplate redis = mock(StringRedisTemplate.class);
+        ObjectProvider<StringRedisTemplate> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(redis);
+        WebhookDeduplicator shared = new WebhookDeduplicator(100, Duration.ofHours(24), Duration.ofMinutes(5), true, provider);
+        // 0 = ya procesado en otra réplica, 2 = en curso en otra réplica
+        when(redis.execute(any(RedisScript.class), anyList(), any(), any(), any())).thenReturn(0L, 2L, 1L);
+
+        assertThat(shared.tryClaim(event(PUBLISH, "delivery-1", 3))).isEqualTo(DUPLICATE);
+        assertThat(shared.tryClaim(event(PUBLISH, "delivery-2", 3))).isEqualTo(IN_FLIGHT);
+        // El claim local se soltó en ambos casos
+        assertThat(shared.tryClaim(event(PUBLISH, "delivery-3", 3))).isEqualTo(ACQUIRED);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void redisFailureFallsBackToTheLocalClaim() {
+        StringRedisTemplate redis = mock(StringRedisTemplate.class);
+        ObjectProvider<StringRedisTemplate> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(redis);
+        WebhookDeduplicator shared = new WebhookDeduplicator(100, Duration.ofHours(24), Duration.ofMinutes(5), true, provider);
+        when(redis.execute(any(RedisScript.class), anyList(), any(), any(), any()))
+                .thenThrow(new IllegalStateException("Redis caído"));
+
+        assertThat(shared.tryClaim(event(PUBLISH, "delivery-1", 3))).isEqualTo(ACQUIRED);
+        assertThat(shared.tryClaim(event(PUBLISH, "delivery-2", 3))).isEqualTo(IN_FLIGHT);
+    }
+}
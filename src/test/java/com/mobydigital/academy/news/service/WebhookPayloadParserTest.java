@@ -0,0 +1,71 @@
+package com.mobydigital.academy.news.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mobydigital.academy.news.dto.WebhookEvent;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WebhookPayloadParserTest {
+
+    private static final String TOPIC = "ContentManagement.Entry.publish";
+
+    private final WebhookPayloadParser parser = new WebhookPayloadParser(new ObjectMapper());
+
+    private WebhookEvent parse(String json) {
+        return parser.parse(TOPIC, "delivery-1", json == null ? null : json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void readsSysEvenWhenFieldsComeFirst() {
+        WebhookEvent event = parse("""
+                {"fields": {"title": {"en-US": "Hola"}, "image": {"en-US": {"sys": {"type": "Link", "id": "img"}}}},
+                 "sys": {"id": "entry-1", "type": "Entry", "revision": 4,
+                         "contentType": {"sys": {"type": "Link", "linkType": "ContentType", "id": "news"}}}}
+                """);
+
+        assertThat(event.getEntityId()).isEqualTo("entry-1");
+        assertThat(event.getRevision()).isEqualTo(4);
+        assertThat(event.getContentType()).isEqualTo("news");
+        assertThat(event.getDeliveryId()).isEqualTo("delivery-1");
+        assertThat(event.getAction()).isEqualTo("publish");
+    }
+
+    @Test
+    void readsSysNestedUnderEntity() {
+        WebhookEvent event = parse("""
+                {"entity": {"sys": {"id": "entry-2", "revision": 1}}, "sys": {"id": "ignored"}}
+                """);
+
+        assertThat(event.getEntityId()).isEqualTo("entry-2");
+        assertThat(event.getRevision()).isEqualTo(1);
+        assertThat(event.getContentType()).isNull();
+    }
+
+    @Test
+    void nonNumericRevisionIsIgnored() {
+        WebhookEvent event = parse("{\"sys\": {\"id\": \"entry-3\", \"revision\": \"4\"}}");
+
+        assertThat(event.getEntityId()).isEqualTo("entry-3");
+        assertThat(event.getRevision()).isNull();
+    }
+
+    @Test
+    void emptyOrBrokenBodyYieldsEventWithoutIds() {
+        assertThat(parse(null).getEntityId()).isNull();
+        assertThat(parse("").getEntityId()).isNull();
+        WebhookEvent broken = parse("{\"sys\": {\"id\": ");
+        assertThat(broken.getEntityId()).isNull();
+        assertThat(broken.getTopic()).isEqualTo(TOPIC);
+    }
+
+    @Test
+    void readEntityUnwrapsEntity() {
+        byte[] body = "{\"entity\": {\"sys\": {\"id\": \"entry-4\"}}}".getBytes(StandardCharsets.UTF_8);
+
+        assertThat(parser.readEntity(body).path("sys").path("id").asText()).isEqualTo("entry-4");
+        assertThat(parser.readEntity(null)).isNull();
+    }
+}